@@ -275,6 +275,16 @@ public abstract class ASTNode {
         return lineNum;
     }
 
+    /**
+     * Set the line number corresponding to this AST node, for example
+     * after lines have been inserted into or removed from the source before it
+     *
+     * @param lineNum the new source line number
+     */
+    public void setLineNum(int lineNum) {
+        this.lineNum = lineNum;
+    }
+
     /**
      * Visitor method
      *
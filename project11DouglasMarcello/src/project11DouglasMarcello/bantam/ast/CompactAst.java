@@ -0,0 +1,2064 @@
+/*
+ * File: CompactAst.java
+ * This file contains the CompactAst class, an AST stored in flat primitive arrays.
+ */
+
+package project11DouglasMarcello.bantam.ast;
+
+import project11DouglasMarcello.bantam.visitor.Visitor;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The CompactAst class holds a whole AST in a few parallel arrays instead of one
+ * object per node. Each node is an index into the arrays, which give its kind,
+ * its line number, its first child, its next sibling and up to two names.
+ * The names are ids into one table of strings, so each distinct name is stored once.
+ * The nodes are laid out in preorder, so the nodes of a subtree are next to each other.
+ *
+ * Every child position of a node is filled, in the order of the node's constructor,
+ * with a NONE node standing for a missing child such as a field without an initializer.
+ * The elements of a list are its children.
+ *
+ * getRoot() gives a Program that can be passed to any Visitor. Its nodes are views
+ * that read the arrays and create the views of their children when asked for them,
+ * so a node no one looks at takes no memory. The views are read-only, and asking for
+ * the same child twice gives two different objects.
+ *
+ * A CompactAst can be saved to a file with write() and loaded back with read().
+ * The file holds the arrays as they are, behind a header with a magic number,
+ * the format version and a hash of the source the AST was parsed from, so that
+ * loading it is a few bulk copies out of a memory-mapped file. All the ints are
+ * big-endian:
+ *
+ * <pre>
+ * magic "BTMC", version, hash length, hash bytes, node count, name count,
+ * lines, first children, next siblings, names, second names, extras (one int per node each),
+ * kinds (one byte per node),
+ * for each name: its length in bytes and its UTF-8 bytes
+ * </pre>
+ */
+public class CompactAst {
+    /**
+     * The kinds of nodes, one for each concrete AST class, with the class and
+     * the types of the children each kind has. A list has any number of children
+     * of its element type; any other kind has one child for each of its child types.
+     * A child that may be missing is flagged in a bit mask by its position,
+     * and is a NONE node when it is.
+     */
+    public enum Kind {
+        NONE(null, 0),
+        PROGRAM(Program.class, 0, ClassList.class),
+        CLASS_LIST(ClassList.class, 0, Class_.class),
+        CLASS(Class_.class, 0, MemberList.class),
+        MEMBER_LIST(MemberList.class, 0, Member.class),
+        FIELD(Field.class, 0b1, Expr.class),
+        METHOD(Method.class, 0, FormalList.class, StmtList.class),
+        FORMAL_LIST(FormalList.class, 0, Formal.class),
+        FORMAL(Formal.class, 0),
+        STMT_LIST(StmtList.class, 0, Stmt.class),
+        DECL_STMT(DeclStmt.class, 0, Expr.class),
+        EXPR_STMT(ExprStmt.class, 0, Expr.class),
+        IF_STMT(IfStmt.class, 0b100, Expr.class, Stmt.class, Stmt.class),
+        WHILE_STMT(WhileStmt.class, 0, Expr.class, Stmt.class),
+        FOR_STMT(ForStmt.class, 0b111, Expr.class, Expr.class, Expr.class, Stmt.class),
+        BREAK_STMT(BreakStmt.class, 0),
+        BLOCK_STMT(BlockStmt.class, 0, StmtList.class),
+        RETURN_STMT(ReturnStmt.class, 0b1, Expr.class),
+        EXPR_LIST(ExprList.class, 0, Expr.class),
+        DISPATCH_EXPR(DispatchExpr.class, 0b1, Expr.class, ExprList.class),
+        NEW_EXPR(NewExpr.class, 0),
+        NEW_ARRAY_EXPR(NewArrayExpr.class, 0, Expr.class),
+        INSTANCEOF_EXPR(InstanceofExpr.class, 0, Expr.class),
+        CAST_EXPR(CastExpr.class, 0, Expr.class),
+        ASSIGN_EXPR(AssignExpr.class, 0, Expr.class),
+        ARRAY_ASSIGN_EXPR(ArrayAssignExpr.class, 0, Expr.class, Expr.class),
+        COMP_EQ(BinaryCompEqExpr.class, 0, Expr.class, Expr.class),
+        COMP_NE(BinaryCompNeExpr.class, 0, Expr.class, Expr.class),
+        COMP_LT(BinaryCompLtExpr.class, 0, Expr.class, Expr.class),
+        COMP_LEQ(BinaryCompLeqExpr.class, 0, Expr.class, Expr.class),
+        COMP_GT(BinaryCompGtExpr.class, 0, Expr.class, Expr.class),
+        COMP_GEQ(BinaryCompGeqExpr.class, 0, Expr.class, Expr.class),
+        ARITH_PLUS(BinaryArithPlusExpr.class, 0, Expr.class, Expr.class),
+        ARITH_MINUS(BinaryArithMinusExpr.class, 0, Expr.class, Expr.class),
+        ARITH_TIMES(BinaryArithTimesExpr.class, 0, Expr.class, Expr.class),
+        ARITH_DIVIDE(BinaryArithDivideExpr.class, 0, Expr.class, Expr.class),
+        ARITH_MODULUS(BinaryArithModulusExpr.class, 0, Expr.class, Expr.class),
+        LOGIC_AND(BinaryLogicAndExpr.class, 0, Expr.class, Expr.class),
+        LOGIC_OR(BinaryLogicOrExpr.class, 0, Expr.class, Expr.class),
+        UNARY_NEG(UnaryNegExpr.class, 0, Expr.class),
+        UNARY_NOT(UnaryNotExpr.class, 0, Expr.class),
+        UNARY_INCR(UnaryIncrExpr.class, 0, Expr.class),
+        UNARY_DECR(UnaryDecrExpr.class, 0, Expr.class),
+        VAR_EXPR(VarExpr.class, 0b1, Expr.class),
+        ARRAY_EXPR(ArrayExpr.class, 0b1, Expr.class, Expr.class),
+        CONST_INT(ConstIntExpr.class, 0),
+        CONST_BOOLEAN(ConstBooleanExpr.class, 0),
+        CONST_STRING(ConstStringExpr.class, 0);
+
+        /**
+         * the AST class of the nodes of this kind, or null for NONE
+         */
+        private final Class<? extends ASTNode> nodeClass;
+        /**
+         * the number of children a node of this kind has, or -1 for a list
+         */
+        private final int childCount;
+        /**
+         * the type of each child, or the element type of a list
+         */
+        private final Class<?>[] childTypes;
+        /**
+         * the bit for the position of each child that may be missing
+         */
+        private final int optionalChildren;
+
+        Kind(Class<? extends ASTNode> nodeClass, int optionalChildren, Class<?>... childTypes) {
+            this.nodeClass = nodeClass;
+            this.childTypes = childTypes;
+            this.optionalChildren = optionalChildren;
+            boolean list = nodeClass != null && ListNode.class.isAssignableFrom(nodeClass);
+            this.childCount = list ? -1 : childTypes.length;
+        }
+
+        /**
+         * Gets the AST class of the nodes of this kind.
+         *
+         * @return the class, or null for NONE
+         */
+        public Class<? extends ASTNode> getNodeClass() { return this.nodeClass; }
+
+        /**
+         * Tells whether a node of the given kind may be the child of a node
+         * of this kind at the given position.
+         *
+         * @param position the position of the child
+         * @param child the kind of the child
+         * @return true if the child fits the position
+         */
+        private boolean allowsChild(int position, Kind child) {
+            if (this.childCount < 0) {
+                return child.nodeClass != null && this.childTypes[0].isAssignableFrom(child.nodeClass);
+            }
+            if (child == NONE) {
+                return (this.optionalChildren & (1 << position)) != 0;
+            }
+            return this.childTypes[position].isAssignableFrom(child.nodeClass);
+        }
+    }
+
+    /**
+     * the first four bytes of a saved CompactAst, "BTMC"
+     */
+    public static final int MAGIC = 0x42544D43;
+    /**
+     * the version of the file format, changed whenever the format or the Kind values change
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * all the Kind values, indexed by ordinal
+     */
+    private static final Kind[] kindValues = Kind.values();
+    /**
+     * the index of a child, sibling or name that is not there
+     */
+    private static final int NO_INDEX = -1;
+
+    /**
+     * the ordinal of the Kind of each node
+     */
+    private byte[] kinds;
+    /**
+     * the line number of each node
+     */
+    private int[] lines;
+    /**
+     * the index of the first child of each node, or NO_INDEX
+     */
+    private int[] firstChildren;
+    /**
+     * the index of the next sibling of each node, or NO_INDEX
+     */
+    private int[] nextSiblings;
+    /**
+     * the id of the first name of each node, or NO_INDEX
+     */
+    private int[] names;
+    /**
+     * the id of the second name of each node, or NO_INDEX
+     */
+    private int[] secondNames;
+    /**
+     * the size of a list, the id of the filename of a class,
+     * or 1 for a postfix increment or decrement
+     */
+    private int[] extras;
+    /**
+     * the number of nodes
+     */
+    private int size;
+    /**
+     * the names, indexed by id
+     */
+    private String[] strings;
+    /**
+     * the number of names
+     */
+    private int stringCount;
+
+    /**
+     * A constructor of the CompactAst class.
+     *
+     * @param capacity the initial number of nodes the arrays can hold
+     */
+    private CompactAst(int capacity) {
+        this.kinds = new byte[capacity];
+        this.lines = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.names = new int[capacity];
+        this.secondNames = new int[capacity];
+        this.extras = new int[capacity];
+        this.strings = new String[16];
+    }
+
+    /**
+     * Copies the given AST into a new CompactAst.
+     *
+     * @param program the root of the AST
+     * @return the CompactAst holding the same tree
+     */
+    public static CompactAst encode(Program program) {
+        CompactAst ast = new CompactAst(256);
+        ast.new Encoder().encode(program);
+        ast.trimToSize();
+        return ast;
+    }
+
+    /**
+     * Saves the tree to the given file, replacing it if it exists.
+     * The file is written under a temporary name first and then renamed,
+     * so a reader never sees a partly written file.
+     *
+     * @param path the path of the file
+     * @param sourceHash the hash of the source the tree was parsed from
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path, byte[] sourceHash) throws IOException {
+        byte[][] encodedStrings = new byte[this.stringCount][];
+        long length = 24L + sourceHash.length + 25L * this.size;
+        for (int i = 0; i < this.stringCount; i++) {
+            encodedStrings[i] = this.strings[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + encodedStrings[i].length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("The AST is too large to be saved to " + path);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(sourceHash.length).put(sourceHash);
+        buffer.putInt(this.size).putInt(this.stringCount);
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(this.lines, 0, this.size).put(this.firstChildren, 0, this.size)
+                .put(this.nextSiblings, 0, this.size).put(this.names, 0, this.size)
+                .put(this.secondNames, 0, this.size).put(this.extras, 0, this.size);
+        buffer.position(buffer.position() + 24 * this.size);
+        buffer.put(this.kinds, 0, this.size);
+        for (byte[] encoded : encodedStrings) {
+            buffer.putInt(encoded.length).put(encoded);
+        }
+        buffer.flip();
+
+        // a new temporary file each time, since several threads or processes may save the same tree
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(),
+                path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loads a tree saved by write(), memory-mapping the file.
+     *
+     * @param path the path of the file
+     * @param sourceHash the hash of the current source
+     * @return the CompactAst, or null if the file was written by another version
+     *         of the format or for a different source
+     * @throws IOException if the file cannot be read or is not a well-formed saved tree
+     */
+    public static CompactAst read(Path path, byte[] sourceHash) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            // the counts in the file are checked against its length before anything is allocated
+            int hashLength = buffer.getInt();
+            if (hashLength < 0 || hashLength > buffer.remaining()) {
+                throw new IOException(path + " is not a well-formed AST file.");
+            }
+            byte[] hash = new byte[hashLength];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, sourceHash)) {
+                return null;
+            }
+
+            int size = buffer.getInt();
+            int stringCount = buffer.getInt();
+            if (size < 0 || stringCount < 0 || 25L * size + 4L * stringCount > buffer.remaining()) {
+                throw new IOException(path + " is not a well-formed AST file.");
+            }
+            CompactAst ast = new CompactAst(size);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.get(ast.lines).get(ast.firstChildren).get(ast.nextSiblings)
+                    .get(ast.names).get(ast.secondNames).get(ast.extras);
+            buffer.position(buffer.position() + 24 * size);
+            buffer.get(ast.kinds);
+            ast.size = size;
+
+            ast.strings = new String[stringCount];
+            byte[] encoded = new byte[64];
+            for (int i = 0; i < stringCount; i++) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException(path + " is not a well-formed AST file.");
+                }
+                if (length > encoded.length) {
+                    encoded = new byte[Math.max(length, encoded.length * 2)];
+                }
+                buffer.get(encoded, 0, length);
+                ast.strings[i] = new String(encoded, 0, length, StandardCharsets.UTF_8);
+            }
+            ast.stringCount = stringCount;
+
+            if (!ast.isWellFormed()) {
+                throw new IOException(path + " is not a well-formed AST file.");
+            }
+            return ast;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            throw new IOException(path + " is not a well-formed AST file.", e);
+        }
+    }
+
+    /**
+     * Gets the root of the tree as a Program that can be visited like any other.
+     *
+     * @return a view of the Program node
+     */
+    public Program getRoot() { return (Program) this.getNode(0); }
+
+    /**
+     * Gets the number of nodes, NONE nodes included.
+     *
+     * @return the number of nodes
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Gets the kind of the node at the given index.
+     *
+     * @param node the index of the node
+     * @return the Kind of the node
+     */
+    public Kind getKind(int node) { return kindValues[this.kinds[node]]; }
+
+    /**
+     * Gets the line number of the node at the given index.
+     *
+     * @param node the index of the node
+     * @return the line number of the node
+     */
+    public int getLineNum(int node) { return this.lines[node]; }
+
+    /**
+     * Gets the first child of the node at the given index.
+     *
+     * @param node the index of the node
+     * @return the index of the first child, or -1 if the node has no children
+     */
+    public int getFirstChild(int node) { return this.firstChildren[node]; }
+
+    /**
+     * Gets the next sibling of the node at the given index.
+     *
+     * @param node the index of the node
+     * @return the index of the next sibling, or -1 if the node is the last child of its parent
+     */
+    public int getNextSibling(int node) { return this.nextSiblings[node]; }
+
+    /**
+     * Gets the first name of the node at the given index: the name of a class, a variable
+     * or a method, the type of a formal, a field or a new expression, or a constant.
+     *
+     * @param node the index of the node
+     * @return the name, or null if the node has none
+     */
+    public String getName(int node) { return this.string(this.names[node]); }
+
+    /**
+     * Gets the second name of the node at the given index: the parent of a class,
+     * the name of a field, a method or a formal, or the name assigned to.
+     *
+     * @param node the index of the node
+     * @return the name, or null if the node has none
+     */
+    public String getSecondName(int node) { return this.string(this.secondNames[node]); }
+
+    /**
+     * Gets the child at the given position of the node at the given index.
+     *
+     * @param node the index of the node
+     * @param position the position of the child, 0 for the first
+     * @return the index of the child
+     */
+    public int getChild(int node, int position) {
+        int child = this.firstChildren[node];
+        for (int i = 0; i < position; i++) {
+            child = this.nextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * Creates a view of the node at the given index.
+     *
+     * @param node the index of the node
+     * @return the AST node, or null for a NONE node
+     */
+    public ASTNode getNode(int node) {
+        switch (this.getKind(node)) {
+            case PROGRAM:
+                return new ProgramView(node);
+            case CLASS_LIST:
+                return new ClassListView(node);
+            case CLASS:
+                return new ClassView(node);
+            case MEMBER_LIST:
+                return new MemberListView(node);
+            case FIELD:
+                return new FieldView(node);
+            case METHOD:
+                return new MethodView(node);
+            case FORMAL_LIST:
+                return new FormalListView(node);
+            case FORMAL:
+                return new FormalView(node);
+            case STMT_LIST:
+                return new StmtListView(node);
+            case DECL_STMT:
+                return new DeclStmtView(node);
+            case EXPR_STMT:
+                return new ExprStmtView(node);
+            case IF_STMT:
+                return new IfStmtView(node);
+            case WHILE_STMT:
+                return new WhileStmtView(node);
+            case FOR_STMT:
+                return new ForStmtView(node);
+            case BREAK_STMT:
+                return new BreakStmtView(node);
+            case BLOCK_STMT:
+                return new BlockStmtView(node);
+            case RETURN_STMT:
+                return new ReturnStmtView(node);
+            case EXPR_LIST:
+                return new ExprListView(node);
+            case DISPATCH_EXPR:
+                return new DispatchExprView(node);
+            case NEW_EXPR:
+                return new NewExprView(node);
+            case NEW_ARRAY_EXPR:
+                return new NewArrayExprView(node);
+            case INSTANCEOF_EXPR:
+                return new InstanceofExprView(node);
+            case CAST_EXPR:
+                return new CastExprView(node);
+            case ASSIGN_EXPR:
+                return new AssignExprView(node);
+            case ARRAY_ASSIGN_EXPR:
+                return new ArrayAssignExprView(node);
+            case COMP_EQ:
+                return new BinaryCompEqExprView(node);
+            case COMP_NE:
+                return new BinaryCompNeExprView(node);
+            case COMP_LT:
+                return new BinaryCompLtExprView(node);
+            case COMP_LEQ:
+                return new BinaryCompLeqExprView(node);
+            case COMP_GT:
+                return new BinaryCompGtExprView(node);
+            case COMP_GEQ:
+                return new BinaryCompGeqExprView(node);
+            case ARITH_PLUS:
+                return new BinaryArithPlusExprView(node);
+            case ARITH_MINUS:
+                return new BinaryArithMinusExprView(node);
+            case ARITH_TIMES:
+                return new BinaryArithTimesExprView(node);
+            case ARITH_DIVIDE:
+                return new BinaryArithDivideExprView(node);
+            case ARITH_MODULUS:
+                return new BinaryArithModulusExprView(node);
+            case LOGIC_AND:
+                return new BinaryLogicAndExprView(node);
+            case LOGIC_OR:
+                return new BinaryLogicOrExprView(node);
+            case UNARY_NEG:
+                return new UnaryNegExprView(node);
+            case UNARY_NOT:
+                return new UnaryNotExprView(node);
+            case UNARY_INCR:
+                return new UnaryIncrExprView(node);
+            case UNARY_DECR:
+                return new UnaryDecrExprView(node);
+            case VAR_EXPR:
+                return new VarExprView(node);
+            case ARRAY_EXPR:
+                return new ArrayExprView(node);
+            case CONST_INT:
+                return new ConstIntExprView(node);
+            case CONST_BOOLEAN:
+                return new ConstBooleanExprView(node);
+            case CONST_STRING:
+                return new ConstStringExprView(node);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Helper method to look up a name by its id.
+     *
+     * @param id the id of the name, or NO_INDEX
+     * @return the name, or null for NO_INDEX
+     */
+    private String string(int id) { return (id == NO_INDEX) ? null : this.strings[id]; }
+
+    /**
+     * Helper method to list the children of a node.
+     *
+     * @param node the index of the node
+     * @return the indexes of its children, in order
+     */
+    private int[] getChildren(int node) {
+        int[] children = new int[this.extras[node]];
+        int child = this.firstChildren[node];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = child;
+            child = this.nextSiblings[child];
+        }
+        return children;
+    }
+
+    /**
+     * Helper method to check that every kind, index and id in the arrays is in range
+     * and that every node has as many children as its kind calls for, each of a kind
+     * that fits its position, so that a damaged file is turned down when it is loaded.
+     *
+     * @return true if the arrays are consistent
+     */
+    private boolean isWellFormed() {
+        if (this.size == 0 || this.getKindOrdinal(0) != Kind.PROGRAM.ordinal()) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            // children and siblings come after their node in preorder
+            if (this.getKindOrdinal(i) >= kindValues.length
+                    || !this.isLaterNode(i, this.firstChildren[i]) || !this.isLaterNode(i, this.nextSiblings[i])
+                    || !this.isString(this.names[i]) || !this.isString(this.secondNames[i])
+                    || (this.kinds[i] == Kind.CLASS.ordinal() && !this.isString(this.extras[i]))
+                    || (this.kinds[i] == Kind.CONST_INT.ordinal() && !this.isIntConstant(this.names[i]))) {
+                return false;
+            }
+        }
+        for (int i = 0; i < this.size; i++) {
+            Kind kind = kindValues[this.kinds[i]];
+            int childCount = kind.childCount;
+            int count = 0;
+            for (int child = this.firstChildren[i]; child != NO_INDEX; child = this.nextSiblings[child]) {
+                // every child must be of a kind its parent's view can cast it to
+                if ((childCount >= 0 && count >= childCount)
+                        || !kind.allowsChild(count, kindValues[this.kinds[child]])) {
+                    return false;
+                }
+                count++;
+            }
+            if (count != ((childCount < 0) ? this.extras[i] : childCount)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method to get the ordinal of the Kind of a node without looking it up.
+     *
+     * @param node the index of the node
+     * @return the ordinal, which may be out of range in a damaged file
+     */
+    private int getKindOrdinal(int node) { return this.kinds[node] & 0xFF; }
+
+    /**
+     * Helper method to check a child or sibling index read from a file.
+     *
+     * @param node the index of the node it belongs to
+     * @param index the index of the child or sibling
+     * @return true if it is NO_INDEX or a node after the given one
+     */
+    private boolean isLaterNode(int node, int index) {
+        return index == NO_INDEX || (index > node && index < this.size);
+    }
+
+    /**
+     * Helper method to check the name id of a CONST_INT node read from a file,
+     * since its view parses the name.
+     *
+     * @param id the id
+     * @return true if it is the id of a name that is an int
+     */
+    private boolean isIntConstant(int id) {
+        if (id == NO_INDEX || !this.isString(id)) {
+            return false;
+        }
+        try {
+            Integer.parseInt(this.strings[id]);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper method to check a name id read from a file.
+     *
+     * @param id the id
+     * @return true if it is NO_INDEX or the id of a name
+     */
+    private boolean isString(int id) { return id == NO_INDEX || (id >= 0 && id < this.stringCount); }
+
+    /**
+     * Helper method to shrink the arrays to the number of nodes and names.
+     */
+    private void trimToSize() {
+        this.kinds = Arrays.copyOf(this.kinds, this.size);
+        this.lines = Arrays.copyOf(this.lines, this.size);
+        this.firstChildren = Arrays.copyOf(this.firstChildren, this.size);
+        this.nextSiblings = Arrays.copyOf(this.nextSiblings, this.size);
+        this.names = Arrays.copyOf(this.names, this.size);
+        this.secondNames = Arrays.copyOf(this.secondNames, this.size);
+        this.extras = Arrays.copyOf(this.extras, this.size);
+        this.strings = Arrays.copyOf(this.strings, this.stringCount);
+    }
+
+    /**
+     * Iterates over the views of the children of a node.
+     */
+    private class ChildIterator implements Iterator<ASTNode> {
+        /**
+         * the index of the next child, or NO_INDEX
+         */
+        private int next;
+
+        /**
+         * A constructor of the ChildIterator class.
+         *
+         * @param node the index of the node whose children are iterated over
+         */
+        ChildIterator(int node) { this.next = firstChildren[node]; }
+
+        @Override
+        public boolean hasNext() { return this.next != NO_INDEX; }
+
+        @Override
+        public ASTNode next() {
+            if (this.next == NO_INDEX) {
+                throw new NoSuchElementException();
+            }
+            ASTNode child = getNode(this.next);
+            this.next = nextSiblings[this.next];
+            return child;
+        }
+    }
+
+    /**
+     * Copies an AST into the arrays, visiting it in preorder.
+     * Each visit adds its node, linked to its parent, and leaves its children on a stack
+     * to be added after it, so that an AST of any depth can be copied without recursion.
+     */
+    private class Encoder extends Visitor {
+        /**
+         * the ids of the names added so far
+         */
+        private Map<String, Integer> ids = new HashMap<>();
+        /**
+         * the nodes still to be added, the next one last, with null for a NONE node
+         */
+        private ASTNode[] pending = new ASTNode[64];
+        /**
+         * the index of the parent of each node still to be added
+         */
+        private int[] pendingParents = new int[64];
+        /**
+         * the number of nodes still to be added
+         */
+        private int pendingCount;
+        /**
+         * the index of the parent of the node being added, or NO_INDEX for the root
+         */
+        private int parent = NO_INDEX;
+        /**
+         * the index of the last child added so far to each node, by the index of the node
+         */
+        private int[] lastChildren = new int[kinds.length];
+
+        /**
+         * Adds an AST in preorder.
+         *
+         * @param root the root of the AST
+         */
+        private void encode(ASTNode root) {
+            this.push(root, NO_INDEX);
+            while (this.pendingCount > 0) {
+                ASTNode node = this.pending[--this.pendingCount];
+                this.pending[this.pendingCount] = null;
+                this.parent = this.pendingParents[this.pendingCount];
+                if (node == null) {
+                    this.add(Kind.NONE, 0, null, null, 0);
+                }
+                else {
+                    node.accept(this);
+                }
+            }
+        }
+
+        /**
+         * Helper method to push a node still to be added onto the stack.
+         *
+         * @param node the node, or null for a NONE node
+         * @param parent the index of the parent of the node
+         */
+        private void push(ASTNode node, int parent) {
+            if (this.pendingCount == this.pending.length) {
+                int capacity = this.pendingCount * 2;
+                this.pending = Arrays.copyOf(this.pending, capacity);
+                this.pendingParents = Arrays.copyOf(this.pendingParents, capacity);
+            }
+            this.pending[this.pendingCount] = node;
+            this.pendingParents[this.pendingCount++] = parent;
+        }
+
+        /**
+         * Adds a node with no children yet, as the next child of the parent of the node being added.
+         *
+         * @param kind the kind of the node
+         * @param lineNum the line number of the node
+         * @param name the first name of the node, or null
+         * @param secondName the second name of the node, or null
+         * @param extra the size of a list, the id of the filename of a class, or the postfix flag
+         * @return the index of the node
+         */
+        private int add(Kind kind, int lineNum, String name, String secondName, int extra) {
+            if (size == kinds.length) {
+                int capacity = size + (size >> 1) + 1;
+                kinds = Arrays.copyOf(kinds, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+                names = Arrays.copyOf(names, capacity);
+                secondNames = Arrays.copyOf(secondNames, capacity);
+                extras = Arrays.copyOf(extras, capacity);
+                this.lastChildren = Arrays.copyOf(this.lastChildren, capacity);
+            }
+            if (this.parent != NO_INDEX) {
+                int previous = this.lastChildren[this.parent];
+                if (previous == NO_INDEX) {
+                    firstChildren[this.parent] = size;
+                }
+                else {
+                    nextSiblings[previous] = size;
+                }
+                this.lastChildren[this.parent] = size;
+            }
+            this.lastChildren[size] = NO_INDEX;
+            kinds[size] = (byte) kind.ordinal();
+            lines[size] = lineNum;
+            firstChildren[size] = NO_INDEX;
+            nextSiblings[size] = NO_INDEX;
+            names[size] = this.intern(name);
+            secondNames[size] = this.intern(secondName);
+            extras[size] = extra;
+            return size++;
+        }
+
+        /**
+         * Leaves the given nodes and their subtrees to be added as the children of a node,
+         * with a NONE node for each one that is null.
+         *
+         * @param parent the index of the node
+         * @param children the children, in order
+         */
+        private void addChildren(int parent, ASTNode... children) {
+            // pushed last to first, so that the first child is added next
+            for (int i = children.length - 1; i >= 0; i--) {
+                this.push(children[i], parent);
+            }
+        }
+
+        /**
+         * Adds a list and its elements.
+         *
+         * @param kind the kind of the list
+         * @param list the list
+         * @return the index of the list
+         */
+        private int addList(Kind kind, ListNode list) {
+            int index = this.add(kind, list.getLineNum(), null, null, list.getSize());
+            ASTNode[] elements = new ASTNode[list.getSize()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = list.get(i);
+            }
+            this.addChildren(index, elements);
+            return index;
+        }
+
+        /**
+         * Gets the id of a name, adding it to the table if it is new.
+         *
+         * @param name the name, or null
+         * @return the id of the name, or NO_INDEX for null
+         */
+        private int intern(String name) {
+            if (name == null) {
+                return NO_INDEX;
+            }
+            Integer id = this.ids.get(name);
+            if (id == null) {
+                if (stringCount == strings.length) {
+                    strings = Arrays.copyOf(strings, stringCount * 2);
+                }
+                id = stringCount;
+                strings[stringCount++] = name;
+                this.ids.put(name, id);
+            }
+            return id;
+        }
+
+        @Override
+        public Object visit(Program node) {
+            int index = add(Kind.PROGRAM, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getClassList());
+            return index;
+        }
+
+        @Override
+        public Object visit(ClassList node) {
+            return addList(Kind.CLASS_LIST, node);
+        }
+
+        @Override
+        public Object visit(Class_ node) {
+            int index = add(Kind.CLASS, node.getLineNum(), node.getName(),
+                    node.getParent(), intern(node.getFilename()));
+            addChildren(index, node.getMemberList());
+            return index;
+        }
+
+        @Override
+        public Object visit(MemberList node) {
+            return addList(Kind.MEMBER_LIST, node);
+        }
+
+        @Override
+        public Object visit(Field node) {
+            int index = add(Kind.FIELD, node.getLineNum(), node.getType(), node.getName(), 0);
+            addChildren(index, node.getInit());
+            return index;
+        }
+
+        @Override
+        public Object visit(Method node) {
+            int index = add(Kind.METHOD, node.getLineNum(), node.getReturnType(), node.getName(), 0);
+            addChildren(index, node.getFormalList(), node.getStmtList());
+            return index;
+        }
+
+        @Override
+        public Object visit(FormalList node) {
+            return addList(Kind.FORMAL_LIST, node);
+        }
+
+        @Override
+        public Object visit(Formal node) {
+            int index = add(Kind.FORMAL, node.getLineNum(), node.getType(), node.getName(), 0);
+            return index;
+        }
+
+        @Override
+        public Object visit(StmtList node) {
+            return addList(Kind.STMT_LIST, node);
+        }
+
+        @Override
+        public Object visit(DeclStmt node) {
+            int index = add(Kind.DECL_STMT, node.getLineNum(), node.getName(), null, 0);
+            addChildren(index, node.getInit());
+            return index;
+        }
+
+        @Override
+        public Object visit(ExprStmt node) {
+            int index = add(Kind.EXPR_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(IfStmt node) {
+            int index = add(Kind.IF_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getPredExpr(), node.getThenStmt(), node.getElseStmt());
+            return index;
+        }
+
+        @Override
+        public Object visit(WhileStmt node) {
+            int index = add(Kind.WHILE_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getPredExpr(), node.getBodyStmt());
+            return index;
+        }
+
+        @Override
+        public Object visit(ForStmt node) {
+            int index = add(Kind.FOR_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getInitExpr(), node.getPredExpr(), node.getUpdateExpr(), node.getBodyStmt());
+            return index;
+        }
+
+        @Override
+        public Object visit(BreakStmt node) {
+            int index = add(Kind.BREAK_STMT, node.getLineNum(), null, null, 0);
+            return index;
+        }
+
+        @Override
+        public Object visit(BlockStmt node) {
+            int index = add(Kind.BLOCK_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getStmtList());
+            return index;
+        }
+
+        @Override
+        public Object visit(ReturnStmt node) {
+            int index = add(Kind.RETURN_STMT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(ExprList node) {
+            return addList(Kind.EXPR_LIST, node);
+        }
+
+        @Override
+        public Object visit(DispatchExpr node) {
+            int index = add(Kind.DISPATCH_EXPR, node.getLineNum(), node.getMethodName(), null, 0);
+            addChildren(index, node.getRefExpr(), node.getActualList());
+            return index;
+        }
+
+        @Override
+        public Object visit(NewExpr node) {
+            int index = add(Kind.NEW_EXPR, node.getLineNum(), node.getType(), null, 0);
+            return index;
+        }
+
+        @Override
+        public Object visit(NewArrayExpr node) {
+            int index = add(Kind.NEW_ARRAY_EXPR, node.getLineNum(), node.getType(), null, 0);
+            addChildren(index, node.getSize());
+            return index;
+        }
+
+        @Override
+        public Object visit(InstanceofExpr node) {
+            int index = add(Kind.INSTANCEOF_EXPR, node.getLineNum(), node.getType(), null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(CastExpr node) {
+            int index = add(Kind.CAST_EXPR, node.getLineNum(), node.getType(), null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(AssignExpr node) {
+            int index = add(Kind.ASSIGN_EXPR, node.getLineNum(), node.getRefName(), node.getName(), 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(ArrayAssignExpr node) {
+            int index = add(Kind.ARRAY_ASSIGN_EXPR, node.getLineNum(), node.getRefName(), node.getName(), 0);
+            addChildren(index, node.getIndex(), node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompEqExpr node) {
+            int index = add(Kind.COMP_EQ, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompNeExpr node) {
+            int index = add(Kind.COMP_NE, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompLtExpr node) {
+            int index = add(Kind.COMP_LT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompLeqExpr node) {
+            int index = add(Kind.COMP_LEQ, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompGtExpr node) {
+            int index = add(Kind.COMP_GT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryCompGeqExpr node) {
+            int index = add(Kind.COMP_GEQ, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryArithPlusExpr node) {
+            int index = add(Kind.ARITH_PLUS, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryArithMinusExpr node) {
+            int index = add(Kind.ARITH_MINUS, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryArithTimesExpr node) {
+            int index = add(Kind.ARITH_TIMES, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryArithDivideExpr node) {
+            int index = add(Kind.ARITH_DIVIDE, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryArithModulusExpr node) {
+            int index = add(Kind.ARITH_MODULUS, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryLogicAndExpr node) {
+            int index = add(Kind.LOGIC_AND, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(BinaryLogicOrExpr node) {
+            int index = add(Kind.LOGIC_OR, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getLeftExpr(), node.getRightExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(UnaryNegExpr node) {
+            int index = add(Kind.UNARY_NEG, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(UnaryNotExpr node) {
+            int index = add(Kind.UNARY_NOT, node.getLineNum(), null, null, 0);
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(UnaryIncrExpr node) {
+            int index = add(Kind.UNARY_INCR, node.getLineNum(), null, null, (node.isPostfix() ? 1 : 0));
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(UnaryDecrExpr node) {
+            int index = add(Kind.UNARY_DECR, node.getLineNum(), null, null, (node.isPostfix() ? 1 : 0));
+            addChildren(index, node.getExpr());
+            return index;
+        }
+
+        @Override
+        public Object visit(VarExpr node) {
+            int index = add(Kind.VAR_EXPR, node.getLineNum(), node.getName(), null, 0);
+            addChildren(index, node.getRef());
+            return index;
+        }
+
+        @Override
+        public Object visit(ArrayExpr node) {
+            int index = add(Kind.ARRAY_EXPR, node.getLineNum(), node.getName(), null, 0);
+            addChildren(index, node.getRef(), node.getIndex());
+            return index;
+        }
+
+        @Override
+        public Object visit(ConstIntExpr node) {
+            int index = add(Kind.CONST_INT, node.getLineNum(), node.getConstant(), null, 0);
+            return index;
+        }
+
+        @Override
+        public Object visit(ConstBooleanExpr node) {
+            int index = add(Kind.CONST_BOOLEAN, node.getLineNum(), node.getConstant(), null, 0);
+            return index;
+        }
+
+        @Override
+        public Object visit(ConstStringExpr node) {
+            int index = add(Kind.CONST_STRING, node.getLineNum(), node.getConstant(), null, 0);
+            return index;
+        }
+    }
+
+    /**
+     * A view of a Program node.
+     */
+    private class ProgramView extends Program {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ProgramView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public ClassList getClassList() { return (ClassList) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a ClassList node.
+     */
+    private class ClassListView extends ClassList {
+        /**
+         * the index of the node
+         */
+        private int node;
+        /**
+         * the indexes of the elements, found the first time they are needed
+         */
+        private int[] elements;
+
+        ClassListView(int node) {
+            super(lines[node]);
+            this.node = node;
+        }
+
+        @Override public int getSize() { return extras[this.node]; }
+
+        @Override public ASTNode get(int index) {
+            if (this.elements == null) {
+                this.elements = getChildren(this.node);
+            }
+            return getNode(this.elements[index]);
+        }
+
+        @Override public Iterator<ASTNode> iterator() { return new ChildIterator(this.node); }
+
+        @Override public ListNode addElement(ASTNode node) { throw new UnsupportedOperationException(); }
+
+        @Override public void set(int index, ASTNode node) { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * A view of a Class_ node.
+     */
+    private class ClassView extends Class_ {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ClassView(int node) {
+            super(lines[node], string(extras[node]), string(names[node]), string(secondNames[node]), null);
+            this.node = node;
+        }
+
+        @Override public MemberList getMemberList() { return (MemberList) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a MemberList node.
+     */
+    private class MemberListView extends MemberList {
+        /**
+         * the index of the node
+         */
+        private int node;
+        /**
+         * the indexes of the elements, found the first time they are needed
+         */
+        private int[] elements;
+
+        MemberListView(int node) {
+            super(lines[node]);
+            this.node = node;
+        }
+
+        @Override public int getSize() { return extras[this.node]; }
+
+        @Override public ASTNode get(int index) {
+            if (this.elements == null) {
+                this.elements = getChildren(this.node);
+            }
+            return getNode(this.elements[index]);
+        }
+
+        @Override public Iterator<ASTNode> iterator() { return new ChildIterator(this.node); }
+
+        @Override public ListNode addElement(ASTNode node) { throw new UnsupportedOperationException(); }
+
+        @Override public void set(int index, ASTNode node) { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * A view of a Field node.
+     */
+    private class FieldView extends Field {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        FieldView(int node) {
+            super(lines[node], string(names[node]), string(secondNames[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getInit() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a Method node.
+     */
+    private class MethodView extends Method {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        MethodView(int node) {
+            super(lines[node], string(names[node]), string(secondNames[node]), null, null);
+            this.node = node;
+        }
+
+        @Override public FormalList getFormalList() { return (FormalList) getNode(getChild(this.node, 0)); }
+
+        @Override public StmtList getStmtList() { return (StmtList) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a FormalList node.
+     */
+    private class FormalListView extends FormalList {
+        /**
+         * the index of the node
+         */
+        private int node;
+        /**
+         * the indexes of the elements, found the first time they are needed
+         */
+        private int[] elements;
+
+        FormalListView(int node) {
+            super(lines[node]);
+            this.node = node;
+        }
+
+        @Override public int getSize() { return extras[this.node]; }
+
+        @Override public ASTNode get(int index) {
+            if (this.elements == null) {
+                this.elements = getChildren(this.node);
+            }
+            return getNode(this.elements[index]);
+        }
+
+        @Override public Iterator<ASTNode> iterator() { return new ChildIterator(this.node); }
+
+        @Override public ListNode addElement(ASTNode node) { throw new UnsupportedOperationException(); }
+
+        @Override public void set(int index, ASTNode node) { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * A view of a Formal node.
+     */
+    private class FormalView extends Formal {
+        FormalView(int node) {
+            super(lines[node], string(names[node]), string(secondNames[node]));
+        }
+    }
+
+    /**
+     * A view of a StmtList node.
+     */
+    private class StmtListView extends StmtList {
+        /**
+         * the index of the node
+         */
+        private int node;
+        /**
+         * the indexes of the elements, found the first time they are needed
+         */
+        private int[] elements;
+
+        StmtListView(int node) {
+            super(lines[node]);
+            this.node = node;
+        }
+
+        @Override public int getSize() { return extras[this.node]; }
+
+        @Override public ASTNode get(int index) {
+            if (this.elements == null) {
+                this.elements = getChildren(this.node);
+            }
+            return getNode(this.elements[index]);
+        }
+
+        @Override public Iterator<ASTNode> iterator() { return new ChildIterator(this.node); }
+
+        @Override public ListNode addElement(ASTNode node) { throw new UnsupportedOperationException(); }
+
+        @Override public void set(int index, ASTNode node) { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * A view of a DeclStmt node.
+     */
+    private class DeclStmtView extends DeclStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        DeclStmtView(int node) {
+            super(lines[node], string(names[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getInit() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an ExprStmt node.
+     */
+    private class ExprStmtView extends ExprStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ExprStmtView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an IfStmt node.
+     */
+    private class IfStmtView extends IfStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        IfStmtView(int node) {
+            super(lines[node], null, null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getPredExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Stmt getThenStmt() { return (Stmt) getNode(getChild(this.node, 1)); }
+
+        @Override public Stmt getElseStmt() { return (Stmt) getNode(getChild(this.node, 2)); }
+    }
+
+    /**
+     * A view of a WhileStmt node.
+     */
+    private class WhileStmtView extends WhileStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        WhileStmtView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getPredExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Stmt getBodyStmt() { return (Stmt) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a ForStmt node.
+     */
+    private class ForStmtView extends ForStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ForStmtView(int node) {
+            super(lines[node], null, null, null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getInitExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getPredExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+
+        @Override public Expr getUpdateExpr() { return (Expr) getNode(getChild(this.node, 2)); }
+
+        @Override public Stmt getBodyStmt() { return (Stmt) getNode(getChild(this.node, 3)); }
+    }
+
+    /**
+     * A view of a BreakStmt node.
+     */
+    private class BreakStmtView extends BreakStmt {
+        BreakStmtView(int node) {
+            super(lines[node]);
+        }
+    }
+
+    /**
+     * A view of a BlockStmt node.
+     */
+    private class BlockStmtView extends BlockStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BlockStmtView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public StmtList getStmtList() { return (StmtList) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a ReturnStmt node.
+     */
+    private class ReturnStmtView extends ReturnStmt {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ReturnStmtView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an ExprList node.
+     */
+    private class ExprListView extends ExprList {
+        /**
+         * the index of the node
+         */
+        private int node;
+        /**
+         * the indexes of the elements, found the first time they are needed
+         */
+        private int[] elements;
+
+        ExprListView(int node) {
+            super(lines[node]);
+            this.node = node;
+        }
+
+        @Override public int getSize() { return extras[this.node]; }
+
+        @Override public ASTNode get(int index) {
+            if (this.elements == null) {
+                this.elements = getChildren(this.node);
+            }
+            return getNode(this.elements[index]);
+        }
+
+        @Override public Iterator<ASTNode> iterator() { return new ChildIterator(this.node); }
+
+        @Override public ListNode addElement(ASTNode node) { throw new UnsupportedOperationException(); }
+
+        @Override public void set(int index, ASTNode node) { throw new UnsupportedOperationException(); }
+    }
+
+    /**
+     * A view of a DispatchExpr node.
+     */
+    private class DispatchExprView extends DispatchExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        DispatchExprView(int node) {
+            super(lines[node], null, string(names[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getRefExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public ExprList getActualList() { return (ExprList) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a NewExpr node.
+     */
+    private class NewExprView extends NewExpr {
+        NewExprView(int node) {
+            super(lines[node], string(names[node]));
+        }
+    }
+
+    /**
+     * A view of a NewArrayExpr node.
+     */
+    private class NewArrayExprView extends NewArrayExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        NewArrayExprView(int node) {
+            super(lines[node], string(names[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getSize() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an InstanceofExpr node.
+     */
+    private class InstanceofExprView extends InstanceofExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        InstanceofExprView(int node) {
+            super(lines[node], null, string(names[node]));
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a CastExpr node.
+     */
+    private class CastExprView extends CastExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        CastExprView(int node) {
+            super(lines[node], string(names[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an AssignExpr node.
+     */
+    private class AssignExprView extends AssignExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        AssignExprView(int node) {
+            super(lines[node], string(names[node]), string(secondNames[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an ArrayAssignExpr node.
+     */
+    private class ArrayAssignExprView extends ArrayAssignExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ArrayAssignExprView(int node) {
+            super(lines[node], string(names[node]), string(secondNames[node]), null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getIndex() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompEqExpr node.
+     */
+    private class BinaryCompEqExprView extends BinaryCompEqExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompEqExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompNeExpr node.
+     */
+    private class BinaryCompNeExprView extends BinaryCompNeExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompNeExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompLtExpr node.
+     */
+    private class BinaryCompLtExprView extends BinaryCompLtExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompLtExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompLeqExpr node.
+     */
+    private class BinaryCompLeqExprView extends BinaryCompLeqExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompLeqExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompGtExpr node.
+     */
+    private class BinaryCompGtExprView extends BinaryCompGtExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompGtExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryCompGeqExpr node.
+     */
+    private class BinaryCompGeqExprView extends BinaryCompGeqExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryCompGeqExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryArithPlusExpr node.
+     */
+    private class BinaryArithPlusExprView extends BinaryArithPlusExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryArithPlusExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryArithMinusExpr node.
+     */
+    private class BinaryArithMinusExprView extends BinaryArithMinusExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryArithMinusExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryArithTimesExpr node.
+     */
+    private class BinaryArithTimesExprView extends BinaryArithTimesExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryArithTimesExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryArithDivideExpr node.
+     */
+    private class BinaryArithDivideExprView extends BinaryArithDivideExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryArithDivideExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryArithModulusExpr node.
+     */
+    private class BinaryArithModulusExprView extends BinaryArithModulusExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryArithModulusExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryLogicAndExpr node.
+     */
+    private class BinaryLogicAndExprView extends BinaryLogicAndExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryLogicAndExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a BinaryLogicOrExpr node.
+     */
+    private class BinaryLogicOrExprView extends BinaryLogicOrExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        BinaryLogicOrExprView(int node) {
+            super(lines[node], null, null);
+            this.node = node;
+        }
+
+        @Override public Expr getLeftExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getRightExpr() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of an UnaryNegExpr node.
+     */
+    private class UnaryNegExprView extends UnaryNegExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        UnaryNegExprView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an UnaryNotExpr node.
+     */
+    private class UnaryNotExprView extends UnaryNotExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        UnaryNotExprView(int node) {
+            super(lines[node], null);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an UnaryIncrExpr node.
+     */
+    private class UnaryIncrExprView extends UnaryIncrExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        UnaryIncrExprView(int node) {
+            super(lines[node], null, extras[node] != 0);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an UnaryDecrExpr node.
+     */
+    private class UnaryDecrExprView extends UnaryDecrExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        UnaryDecrExprView(int node) {
+            super(lines[node], null, extras[node] != 0);
+            this.node = node;
+        }
+
+        @Override public Expr getExpr() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of a VarExpr node.
+     */
+    private class VarExprView extends VarExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        VarExprView(int node) {
+            super(lines[node], null, string(names[node]));
+            this.node = node;
+        }
+
+        @Override public Expr getRef() { return (Expr) getNode(getChild(this.node, 0)); }
+    }
+
+    /**
+     * A view of an ArrayExpr node.
+     */
+    private class ArrayExprView extends ArrayExpr {
+        /**
+         * the index of the node
+         */
+        private int node;
+
+        ArrayExprView(int node) {
+            super(lines[node], null, string(names[node]), null);
+            this.node = node;
+        }
+
+        @Override public Expr getRef() { return (Expr) getNode(getChild(this.node, 0)); }
+
+        @Override public Expr getIndex() { return (Expr) getNode(getChild(this.node, 1)); }
+    }
+
+    /**
+     * A view of a ConstIntExpr node.
+     */
+    private class ConstIntExprView extends ConstIntExpr {
+        ConstIntExprView(int node) {
+            super(lines[node], string(names[node]));
+        }
+    }
+
+    /**
+     * A view of a ConstBooleanExpr node.
+     */
+    private class ConstBooleanExprView extends ConstBooleanExpr {
+        ConstBooleanExprView(int node) {
+            super(lines[node], string(names[node]));
+        }
+    }
+
+    /**
+     * A view of a ConstStringExpr node.
+     */
+    private class ConstStringExprView extends ConstStringExpr {
+        ConstStringExprView(int node) {
+            super(lines[node], string(names[node]));
+        }
+    }
+}
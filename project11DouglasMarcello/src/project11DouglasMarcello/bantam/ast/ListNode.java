@@ -33,22 +33,42 @@
 package project11DouglasMarcello.bantam.ast;
 
 import project11DouglasMarcello.bantam.visitor.Visitor;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.NoSuchElementException;
 
 /**
  * The abstract <tt>ListNode</tt> class represents a generic list of AST
  * nodes.  It contains a line number (<tt>lineNum</tt>) and a list
  * (<tt>listElements</tt>).
  *
+ * The elements are kept in an unsynchronized array that grows as elements are
+ * added, since an AST is built by one thread. The parser calls trimToSize()
+ * on each list once it is complete.
+ *
  * @see ASTNode
  */
 public abstract class ListNode extends ASTNode
     implements Iterable<ASTNode> {
     /**
-     * List of ASTNode elements
+     * The array shared by all lists that have no elements yet
+     */
+    private static final ASTNode[] NO_ELEMENTS = new ASTNode[0];
+
+    /**
+     * The number of elements a list can hold when its first element is added
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Array of ASTNode elements, of which the first <tt>size</tt> are used
      */
-    private Vector<ASTNode> listElements;
+    private ASTNode[] listElements;
+
+    /**
+     * Number of elements in the list
+     */
+    private int size;
 
     /**
      * ListNode constructor
@@ -57,7 +77,7 @@ public abstract class ListNode extends ASTNode
      */
     protected ListNode(int lineNum) {
         super(lineNum);
-        listElements = new Vector<ASTNode>();
+        listElements = NO_ELEMENTS;
     }
 
     /**
@@ -67,7 +87,11 @@ public abstract class ListNode extends ASTNode
      * @return the updated list
      */
     public ListNode addElement(ASTNode node) {
-        listElements.add(node);
+        if (size == listElements.length) {
+            listElements = Arrays.copyOf(listElements,
+                    Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        listElements[size++] = node;
         return this;
     }
 
@@ -77,7 +101,20 @@ public abstract class ListNode extends ASTNode
      * @return iterator for this list
      */
     public Iterator<ASTNode> iterator() {
-        return listElements.iterator();
+        return new Iterator<ASTNode>() {
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public ASTNode next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return listElements[next++];
+            }
+        };
     }
 
     /**
@@ -86,7 +123,7 @@ public abstract class ListNode extends ASTNode
      * @return list size
      */
     public int getSize() {
-        return listElements.size();
+        return size;
     }
 
     /**
@@ -97,7 +134,44 @@ public abstract class ListNode extends ASTNode
      *         too large or too small
      */
     public ASTNode get(int index) {
-        return listElements.get(index);
+        checkIndex(index);
+        return listElements[index];
+    }
+
+    /**
+     * Replace the index-th element of this list
+     *
+     * @param index index of the element to replace
+     * @param node the new element
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the index is
+     *         too large or too small
+     */
+    public void set(int index, ASTNode node) {
+        checkIndex(index);
+        listElements[index] = node;
+    }
+
+    /**
+     * Shrink the storage of this list to its size, once no more
+     * elements are going to be added
+     */
+    public void trimToSize() {
+        if (listElements.length != size) {
+            listElements = (size == 0) ? NO_ELEMENTS : Arrays.copyOf(listElements, size);
+        }
+    }
+
+    /**
+     * Check that an index refers to an element of this list
+     *
+     * @param index the index
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the index is
+     *         too large or too small
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of range for size " + size);
+        }
     }
 
     /**
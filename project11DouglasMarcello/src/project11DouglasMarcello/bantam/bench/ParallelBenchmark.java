@@ -0,0 +1,148 @@
+/*
+ * File: ParallelBenchmark.java
+ * This file contains the ParallelBenchmark class, comparing the ParallelVisitorRunner
+ * with the sequential visitors at several levels of parallelism.
+ */
+
+package project11DouglasMarcello.bantam.bench;
+
+import project11DouglasMarcello.bantam.ast.Program;
+import project11DouglasMarcello.bantam.parser.Parser;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import project11DouglasMarcello.bantam.visitor.NumLocalVarsVisitor;
+import project11DouglasMarcello.bantam.visitor.ParallelVisitorRunner;
+import project11DouglasMarcello.bantam.visitor.StringConstantsVisitor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ParallelBenchmark class parses a program once, then times the NumLocalVars
+ * and StringConstants analyses run by NumLocalVarsVisitor and StringConstantsVisitor,
+ * and run by a ParallelVisitorRunner at each level of parallelism. The speedup
+ * of each level is given over the sequential visitors and over the runner at
+ * parallelism 1. Before timing, it checks that every level gives the results
+ * of the visitors.
+ *
+ * Usage: ParallelBenchmark [file [runs [parallelism ...]]]. Without a file, a program
+ * of 2000 classes from ProgramGenerator is written to a temporary file and parsed.
+ * The levels of parallelism default to 1, 2, 4 and so on up to at least 4 and
+ * the number of processors. Each of them and the visitors first run 5 times in turn
+ * to warm up the JIT compiler, and only then is each timed.
+ */
+public class ParallelBenchmark {
+    /**
+     * the number of runs of each analysis before the timed ones
+     */
+    private static final int WARMUPS = 5;
+
+    /**
+     * Parses a file and times the analyses on its AST, printing the results.
+     *
+     * @param filename the name of the file
+     * @param runs the number of timed runs
+     * @param levels the levels of parallelism to time the runner at
+     */
+    static void run(String filename, int runs, int[] levels) {
+        ErrorHandler errorHandler = new ErrorHandler();
+        Program program = new Parser(errorHandler).parse(filename);
+        if (program == null || errorHandler.errorsFound()) {
+            System.out.println(filename + " has errors");
+            return;
+        }
+        int classes = program.getClassList().getSize();
+        System.out.printf("%s: %d classes, %d processors%n",
+                filename, classes, Runtime.getRuntime().availableProcessors());
+
+        Object numLocalVars = new NumLocalVarsVisitor().getNumLocalVars(program);
+        Object stringConstants = new StringConstantsVisitor().getStringConstants(program);
+        for (int level : levels) {
+            ParallelVisitorRunner runner = new ParallelVisitorRunner(level);
+            if (!runner.getNumLocalVars(program).equals(numLocalVars)
+                    || !runner.getStringConstants(program).equals(stringConstants)) {
+                System.out.println("The runner at parallelism " + level + " gives different results");
+                return;
+            }
+        }
+
+        Runnable visitors = () -> {
+            new NumLocalVarsVisitor().getNumLocalVars(program);
+            new StringConstantsVisitor().getStringConstants(program);
+        };
+        Runnable[] runners = new Runnable[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            ParallelVisitorRunner runner = new ParallelVisitorRunner(levels[i]);
+            runners[i] = () -> {
+                runner.getNumLocalVars(program);
+                runner.getStringConstants(program);
+            };
+        }
+        // everything is warmed up before anything is timed, so that the levels
+        // timed later do not gain from the JIT work done for the earlier ones
+        for (int i = 0; i < WARMUPS; i++) {
+            visitors.run();
+            for (Runnable runner : runners) {
+                runner.run();
+            }
+        }
+
+        Timing sequential = new Timing(0, runs, visitors);
+        System.out.println("  visitors:              " + sequential);
+        Timing single = null;
+        for (int i = 0; i < levels.length; i++) {
+            Timing timing = new Timing(0, runs, runners[i]);
+            if (levels[i] == 1 && single == null) {
+                single = timing;
+            }
+            System.out.printf("  runner, parallelism %2d: %s, speedup %.2fx over the visitors",
+                    levels[i], timing, sequential.getBest() / timing.getBest());
+            if (single != null && levels[i] != 1) {
+                System.out.printf(", %.2fx over parallelism 1", single.getBest() / timing.getBest());
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * Helper method for main to return the default levels of parallelism:
+     * the powers of 2 up to at least 4 and the number of processors.
+     *
+     * @return the levels of parallelism
+     */
+    private static int[] defaultLevels() {
+        int max = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int count = 32 - Integer.numberOfLeadingZeros(max - 1) + 1;
+        int[] levels = new int[count];
+        for (int i = 0; i < count; i++) {
+            levels[i] = 1 << i;
+        }
+        return levels;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int[] levels = defaultLevels();
+        if (args.length > 2) {
+            levels = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                levels[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+        if (args.length > 0) {
+            run(args[0], runs, levels);
+            return;
+        }
+        Path file = Files.createTempFile("bench", ".btm");
+        try {
+            ProgramGenerator.write(file, 2000);
+            run(file.toString(), runs, levels);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
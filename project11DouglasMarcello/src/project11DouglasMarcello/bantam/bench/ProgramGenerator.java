@@ -0,0 +1,137 @@
+/*
+ * File: ProgramGenerator.java
+ * This file contains the ProgramGenerator class, writing large Bantam programs
+ * for the benchmarks to run on.
+ */
+
+package project11DouglasMarcello.bantam.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * The ProgramGenerator class generates Bantam programs of any number of classes.
+ * Each class has a field, a string field and five methods using most statements
+ * and expressions, with line and block comments between them, so that a program
+ * of 2000 classes is about 126k lines and 4.7 MB. It can also generate a file
+ * that is mostly reserved words, for timing how keywords are told from identifiers.
+ * The output only depends on the size asked for, so the benchmarks can be repeated
+ * on the same input.
+ */
+public class ProgramGenerator {
+    /**
+     * the number of methods of each generated class
+     */
+    private static final int METHODS = 5;
+    /**
+     * the words of a keyword-dense file: the reserved words, the boolean constants
+     * and a few identifiers, some of which start like a reserved word
+     */
+    private static final String[] WORDS = {"break", "cast", "class", "var", "else", "extends",
+            "for", "if", "instanceof", "new", "return", "while", "this", "super", "true", "false",
+            "foo", "bar", "i", "j", "value", "index", "s"};
+    /**
+     * the number of words on each line of a keyword-dense file
+     */
+    private static final int WORDS_PER_LINE = 12;
+
+    /**
+     * Returns the source of a program with the given number of classes.
+     *
+     * @param classes the number of classes
+     * @return the source of the program
+     */
+    public static String generate(int classes) {
+        StringBuilder out = new StringBuilder(classes * 2400);
+        for (int c = 0; c < classes; c++) {
+            out.append("/* generated class ").append(c).append("\n * with a block comment ** and *stars*\n */\n");
+            out.append("class C").append(c).append(" extends Base {\n");
+            out.append("    int f").append(c).append(" = ").append(c).append(";\n");
+            out.append("    String s = \"str\\\\\\\"ing ").append(c).append("\\n\";\n");
+            for (int m = 0; m < METHODS; m++) {
+                out.append("    // method ").append(m).append(" of class ").append(c)
+                        .append(" with a fairly long line comment to skip over\n");
+                out.append("    int m").append(m).append("(int a, boolean b) {\n");
+                out.append("        var x = a * 3 + a - 1 / 2 % 7;\n");
+                out.append("        var y = x < 10 && b || !b && x >= 4 == true;\n");
+                out.append("        if (x != 5) { x = x + 1; } else { x--; }\n");
+                out.append("        while (x > 0) { x = x - 1; print(\"loop\\t\"); }\n");
+                out.append("        for (x = 0; x <= 3; x++) this.foo(a, b, \"s\");\n");
+                out.append("        var z = new C").append(c).append("();\n");
+                out.append("        var w = cast(Object, z);\n");
+                out.append("        return x;\n    }\n");
+            }
+            out.append("}\n\n");
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns a text of the given number of lines of words picked at random, about 70%
+     * of them reserved words or boolean constants. It is not a Bantam program,
+     * but it scans without errors.
+     *
+     * @param lines the number of lines
+     * @return the text
+     */
+    public static String generateKeywords(int lines) {
+        Random random = new Random(lines);
+        StringBuilder out = new StringBuilder(lines * 64);
+        for (int line = 0; line < lines; line++) {
+            for (int w = 0; w < WORDS_PER_LINE; w++) {
+                out.append(WORDS[random.nextInt(WORDS.length)]).append(w == WORDS_PER_LINE - 1 ? '\n' : ' ');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the source of a program with the given number of classes to a file.
+     *
+     * @param path the file to write
+     * @param classes the number of classes
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int classes) throws IOException {
+        Files.write(path, generate(classes).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a keyword-dense text of the given number of lines to a file.
+     *
+     * @param path the file to write
+     * @param lines the number of lines
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeKeywords(Path path, int lines) throws IOException {
+        Files.write(path, generateKeywords(lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a generated program to a file.
+     * Usage: ProgramGenerator file [classes], with 2000 classes by default,
+     * or ProgramGenerator -keywords file [lines] for a keyword-dense file,
+     * with 200000 lines by default.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        boolean keywords = args.length > 0 && args[0].equals("-keywords");
+        int first = keywords ? 1 : 0;
+        if (args.length <= first) {
+            System.out.println("Usage: ProgramGenerator [-keywords] file [size]");
+            return;
+        }
+        Path path = Paths.get(args[first]);
+        if (keywords) {
+            writeKeywords(path, args.length > 2 ? Integer.parseInt(args[2]) : 200000);
+        }
+        else {
+            write(path, args.length > 1 ? Integer.parseInt(args[1]) : 2000);
+        }
+    }
+}
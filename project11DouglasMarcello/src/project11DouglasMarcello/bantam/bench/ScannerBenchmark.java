@@ -0,0 +1,84 @@
+/*
+ * File: ScannerBenchmark.java
+ * This file contains the ScannerBenchmark class, measuring how fast the Scanner
+ * reads and splits a large file into tokens.
+ */
+
+package project11DouglasMarcello.bantam.bench;
+
+import project11DouglasMarcello.bantam.lexer.Scanner;
+import project11DouglasMarcello.bantam.lexer.Token;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ScannerBenchmark class scans a whole file again and again, from opening it
+ * to the EOF token, and reports the tokens scanned per second.
+ *
+ * Usage: ScannerBenchmark [file | -keywords] [runs]. Without a file, a program of
+ * 2000 classes from ProgramGenerator is written to a temporary file and scanned;
+ * with -keywords, a keyword-dense file of 200000 lines is scanned instead.
+ * The first 10 runs warm up the JIT compiler and are not timed.
+ */
+public class ScannerBenchmark {
+    /**
+     * the number of runs before the timed ones
+     */
+    private static final int WARMUPS = 10;
+
+    /**
+     * Scans a file once.
+     *
+     * @param filename the name of the file
+     * @return the number of tokens, not counting the EOF token
+     */
+    static int scan(String filename) {
+        Scanner scanner = new Scanner(filename, new ErrorHandler());
+        int tokens = 0;
+        while (scanner.scan().kind != Token.Kind.EOF) {
+            tokens++;
+        }
+        return tokens;
+    }
+
+    /**
+     * Times the scanning of a file and prints the result.
+     *
+     * @param filename the name of the file
+     * @param runs the number of timed runs
+     */
+    static void run(String filename, int runs) {
+        int tokens = scan(filename);
+        Timing timing = new Timing(WARMUPS, runs, () -> scan(filename));
+        System.out.printf("%s: %d tokens, %s, %.1f Mtok/s%n",
+                filename, tokens, timing, tokens / timing.getBest() / 1e3);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        boolean keywords = args.length > 0 && args[0].equals("-keywords");
+        if (args.length > 0 && !keywords) {
+            run(args[0], runs);
+            return;
+        }
+        Path file = Files.createTempFile("bench", ".btm");
+        try {
+            if (keywords) {
+                ProgramGenerator.writeKeywords(file, 200000);
+            }
+            else {
+                ProgramGenerator.write(file, 2000);
+            }
+            run(file.toString(), runs);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * File: Timing.java
+ * This file contains the Timing class, timing the runs of a benchmark.
+ */
+
+package project11DouglasMarcello.bantam.bench;
+
+import java.util.Arrays;
+
+/**
+ * The Timing class runs a task a number of times to warm up the JIT compiler,
+ * then a number of times more while timing each run.
+ */
+final class Timing {
+    /**
+     * the times of the timed runs in milliseconds, fastest first
+     */
+    private final double[] millis;
+
+    /**
+     * Constructor of the Timing class, running the task.
+     *
+     * @param warmups the number of runs before the timed ones
+     * @param runs the number of timed runs
+     * @param task the task to run
+     */
+    Timing(int warmups, int runs, Runnable task) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("The number of runs must be at least 1, not " + runs);
+        }
+        for (int i = 0; i < warmups; i++) {
+            task.run();
+        }
+        this.millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            this.millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(this.millis);
+    }
+
+    /**
+     * Returns the time of the fastest run in milliseconds.
+     *
+     * @return the best time
+     */
+    double getBest() { return this.millis[0]; }
+
+    /**
+     * Returns the median of the times of the runs in milliseconds.
+     *
+     * @return the median time
+     */
+    double getMedian() { return this.millis[this.millis.length / 2]; }
+
+    /**
+     * Returns the best and the median time as a String.
+     *
+     * @return the times
+     */
+    @Override
+    public String toString() {
+        return String.format("best %.1f ms, median %.1f ms", this.getBest(), this.getMedian());
+    }
+}
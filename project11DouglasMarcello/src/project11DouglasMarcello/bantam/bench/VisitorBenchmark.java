@@ -0,0 +1,95 @@
+/*
+ * File: VisitorBenchmark.java
+ * This file contains the VisitorBenchmark class, measuring how fast visitors
+ * walk the AST of a large program.
+ */
+
+package project11DouglasMarcello.bantam.bench;
+
+import project11DouglasMarcello.bantam.ast.Program;
+import project11DouglasMarcello.bantam.parser.Parser;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import project11DouglasMarcello.bantam.visitor.MainMainVisitor;
+import project11DouglasMarcello.bantam.visitor.NumLocalVarsVisitor;
+import project11DouglasMarcello.bantam.visitor.StringConstantsVisitor;
+import project11DouglasMarcello.bantam.visitor.Visitor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The VisitorBenchmark class parses a program once, then times a walk over the
+ * whole AST with a Visitor that overrides nothing, and the three analyses of
+ * MainMainVisitor, NumLocalVarsVisitor and StringConstantsVisitor one after another.
+ * It also prints the heap taken by the AST, measured around the parse.
+ *
+ * Usage: VisitorBenchmark [file [runs]]. Without a file, a program of 2000 classes
+ * from ProgramGenerator is written to a temporary file and parsed.
+ * The first 5 runs warm up the JIT compiler and are not timed.
+ */
+public class VisitorBenchmark {
+    /**
+     * the number of runs before the timed ones
+     */
+    private static final int WARMUPS = 5;
+
+    /**
+     * Helper method to return the heap in use after a garbage collection.
+     *
+     * @return the bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Parses a file and times the visitors on its AST, printing the results.
+     *
+     * @param filename the name of the file
+     * @param runs the number of timed runs
+     */
+    static void run(String filename, int runs) {
+        ErrorHandler errorHandler = new ErrorHandler();
+        long before = usedHeap();
+        Program program = new Parser(errorHandler).parse(filename);
+        long heap = usedHeap() - before;
+        if (program == null || errorHandler.errorsFound()) {
+            System.out.println(filename + " has errors");
+            return;
+        }
+        Visitor walker = new Visitor() { };
+        Timing walk = new Timing(WARMUPS, runs, () -> program.accept(walker));
+        Timing analyses = new Timing(WARMUPS, runs, () -> {
+            new MainMainVisitor().hasMain(program);
+            new NumLocalVarsVisitor().getNumLocalVars(program);
+            new StringConstantsVisitor().getStringConstants(program);
+        });
+        System.out.printf("%s: AST heap %.1f MB%n", filename, heap / 1e6);
+        System.out.println("  full-AST Visitor walk: " + walk);
+        System.out.println("  the three visitors:    " + analyses);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        if (args.length > 0) {
+            run(args[0], runs);
+            return;
+        }
+        Path file = Files.createTempFile("bench", ".btm");
+        try {
+            ProgramGenerator.write(file, 2000);
+            run(file.toString(), runs);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * File: Driver.java
+ * This file contains the Driver class, the command-line compiler driver (bantamc).
+ */
+
+package project11DouglasMarcello.bantam.driver;
+
+import project11DouglasMarcello.bantam.ast.Program;
+import project11DouglasMarcello.bantam.lexer.BatchLexer;
+import project11DouglasMarcello.bantam.parser.Parser;
+import project11DouglasMarcello.bantam.util.CompilationException;
+import project11DouglasMarcello.bantam.util.Error;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import project11DouglasMarcello.bantam.visitor.MainMainVisitor;
+import project11DouglasMarcello.bantam.visitor.NumLocalVarsVisitor;
+import project11DouglasMarcello.bantam.visitor.StringConstantsVisitor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The Driver class runs the scanner, the parser and the analyses from the command line,
+ * without a GUI, over any number of files and directories:
+ *
+ * <pre>
+ * bantamc [options] command file-or-directory...
+ * </pre>
+ *
+ * The commands are scan, parse, check-main, string-constants and num-local-vars.
+ * Directories are searched recursively for .btm and .java files. The files are
+ * parsed together as one program, so a class defined in two files is an error,
+ * and the analyses run on the whole program once it has been parsed without errors.
+ *
+ * With --cache, the AST of each file is saved in a .btmc file next to it, and loaded
+ * from there instead of parsing the file again as long as the file does not change.
+ *
+ * The diagnostics are printed one per line, or as a single JSON object with --json.
+ * The exit code is 0 if no errors were found, 1 if errors were found in the sources,
+ * and 2 if the command line was wrong, a file could not be read or the driver itself failed.
+ */
+public class Driver {
+    /**
+     * the exit code when no errors were found
+     */
+    public static final int EXIT_OK = 0;
+    /**
+     * the exit code when errors were found in the sources
+     */
+    public static final int EXIT_ERRORS = 1;
+    /**
+     * the exit code when the command line was wrong, a file could not be read
+     * or the driver itself failed
+     */
+    public static final int EXIT_FAILURE = 2;
+
+    /**
+     * the commands, in the order they are listed in the usage message
+     */
+    private static final String[] COMMANDS =
+            {"scan", "parse", "check-main", "string-constants", "num-local-vars"};
+
+    /**
+     * the stream the output is printed to
+     */
+    private PrintStream out;
+    /**
+     * the command to run
+     */
+    private String command;
+    /**
+     * the number of files to scan or parse at the same time
+     */
+    private int jobs = 1;
+    /**
+     * whether to print the output as JSON
+     */
+    private boolean json;
+    /**
+     * whether to load and save the ASTs in .btmc files next to the sources
+     */
+    private boolean cache;
+    /**
+     * the files and directories named on the command line
+     */
+    private List<String> inputs = new ArrayList<>();
+
+    /**
+     * A constructor of the Driver class.
+     *
+     * @param out the stream to print the output to
+     */
+    public Driver(PrintStream out) { this.out = out; }
+
+    /**
+     * Runs the driver and exits with its exit code.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        System.exit(new Driver(System.out).run(args));
+    }
+
+    /**
+     * Runs the command given by the arguments.
+     *
+     * @param args the command-line arguments
+     * @return the exit code
+     */
+    public int run(String[] args) {
+        String problem = this.parseArguments(args);
+        if (problem != null) {
+            if (!problem.isEmpty()) {
+                System.err.println("bantamc: " + problem);
+            }
+            this.printUsage(problem.isEmpty() ? this.out : System.err);
+            return problem.isEmpty() ? EXIT_OK : EXIT_FAILURE;
+        }
+
+        List<Path> paths;
+        try {
+            paths = this.findSources();
+        } catch (IOException e) {
+            return this.fail("Cannot read " + e.getMessage());
+        }
+
+        ErrorHandler errorHandler = new ErrorHandler();
+        Object result = null;
+        try {
+            if (this.command.equals("scan")) {
+                this.scan(paths, errorHandler);
+            }
+            else {
+                Parser parser = new Parser(errorHandler, this.jobs);
+                parser.setUsingAstFiles(this.cache);
+                Program program = parser.parseAll(paths);
+                if (!this.command.equals("parse") && !errorHandler.errorsFound()) {
+                    result = this.analyze(program);
+                }
+            }
+        } catch (CompilationException e) {
+            return this.fail(e.getMessage());
+        } catch (RuntimeException e) {
+            // a bug, not an error in the sources, so it must not end with EXIT_ERRORS
+            return this.fail("Internal error: " + e);
+        }
+
+        List<Error> errors = errorHandler.getErrorList();
+        if (this.json) {
+            this.printJson(paths.size(), errors, result);
+        }
+        else {
+            this.printText(errors, result);
+        }
+        return errors.isEmpty() ? EXIT_OK : EXIT_ERRORS;
+    }
+
+    /**
+     * Helper method to read the options, the command and the inputs from the arguments.
+     *
+     * @param args the command-line arguments
+     * @return null if the arguments are fine, an empty String if help was asked for,
+     *         or else a description of what is wrong
+     */
+    private String parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-h") || arg.equals("--help")) {
+                return "";
+            }
+            else if (arg.equals("--json")) {
+                this.json = true;
+            }
+            else if (arg.equals("--cache")) {
+                this.cache = true;
+            }
+            else if (arg.equals("-j") || arg.equals("--jobs")) {
+                if (i + 1 == args.length) {
+                    return arg + " needs a number of jobs";
+                }
+                try {
+                    this.jobs = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    this.jobs = 0;
+                }
+                if (this.jobs < 1) {
+                    return "The number of jobs must be a positive integer, not " + args[i];
+                }
+            }
+            else if (arg.startsWith("-") && arg.length() > 1) {
+                return "Unknown option " + arg;
+            }
+            else if (this.command == null) {
+                this.command = arg;
+            }
+            else {
+                this.inputs.add(arg);
+            }
+        }
+        if (this.command == null) {
+            return "No command given";
+        }
+        for (String command : COMMANDS) {
+            if (command.equals(this.command)) {
+                return this.inputs.isEmpty() ? "No files given" : null;
+            }
+        }
+        return "Unknown command " + this.command;
+    }
+
+    /**
+     * Helper method to print the usage message.
+     *
+     * @param stream the stream to print it to
+     */
+    private void printUsage(PrintStream stream) {
+        stream.println("usage: bantamc [-j N] [--json] [--cache] command file-or-directory...");
+        stream.println("commands: " + String.join(", ", COMMANDS));
+        stream.println("  -j, --jobs N   scan or parse N files at the same time");
+        stream.println("  --json         print the diagnostics and results as JSON");
+        stream.println("  --cache        reuse the ASTs saved in .btmc files next to unchanged sources");
+        stream.println("exit codes: 0 no errors, 1 errors found, 2 bad command line, unreadable file or internal error");
+    }
+
+    /**
+     * Helper method to report a failure that stops the command.
+     *
+     * @param message what went wrong
+     * @return the exit code for a failure
+     */
+    private int fail(String message) {
+        if (this.json) {
+            this.out.println("{\"command\":" + quote(this.command) + ",\"failure\":" + quote(message) + "}");
+        }
+        else {
+            System.err.println("bantamc: " + message);
+        }
+        return EXIT_FAILURE;
+    }
+
+    /**
+     * Helper method to list the source files named by the inputs,
+     * searching directories for .btm and .java files in name order.
+     *
+     * @return the paths of the source files
+     * @throws IOException if an input does not exist or a directory cannot be read
+     */
+    private List<Path> findSources() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (String input : this.inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    paths.addAll(files.filter(Files::isRegularFile)
+                            .filter(file -> file.toString().endsWith(".btm") || file.toString().endsWith(".java"))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            }
+            else if (Files.isRegularFile(path)) {
+                paths.add(path);
+            }
+            else {
+                throw new IOException(input + ": no such file or directory");
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Helper method to scan the files and register their lexical errors.
+     *
+     * @param paths the paths of the source files
+     * @param errorHandler the ErrorHandler to register the errors with
+     */
+    private void scan(List<Path> paths, ErrorHandler errorHandler) {
+        List<String> filenames = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            filenames.add(path.toString());
+        }
+        List<BatchLexer.Result> results = new BatchLexer(this.jobs).lex(filenames);
+        BatchLexer.mergeErrors(results, errorHandler);
+        for (BatchLexer.Result result : results) {
+            if (result.getFailure() != null) {
+                throw new CompilationException(result.getFailure());
+            }
+        }
+    }
+
+    /**
+     * Helper method to run the analysis named by the command.
+     *
+     * @param program the AST of all the files
+     * @return the result of the analysis, a Boolean or a Map
+     */
+    private Object analyze(Program program) {
+        switch (this.command) {
+            case "check-main":
+                return new MainMainVisitor().hasMain(program);
+            case "string-constants":
+                return new StringConstantsVisitor().getStringConstants(program);
+            default:
+                return new NumLocalVarsVisitor().getNumLocalVars(program);
+        }
+    }
+
+    /**
+     * Helper method to print the errors and the result one per line.
+     *
+     * @param errors the errors found
+     * @param result the result of the analysis, or null
+     */
+    private void printText(List<Error> errors, Object result) {
+        for (Error error : errors) {
+            this.out.println(error);
+        }
+        if (result instanceof Map) {
+            // sorted by key, so that the output does not depend on hashing
+            new TreeMap<Object, Object>((Map<?, ?>) result).forEach(
+                    (key, value) -> this.out.println(key + ": " + value));
+        }
+        else if (result != null) {
+            this.out.println(result);
+        }
+    }
+
+    /**
+     * Helper method to print the errors and the result as one JSON object.
+     *
+     * @param fileCount the number of files processed
+     * @param errors the errors found
+     * @param result the result of the analysis, or null
+     */
+    private void printJson(int fileCount, List<Error> errors, Object result) {
+        StringBuilder output = new StringBuilder();
+        output.append("{\"command\":").append(quote(this.command));
+        output.append(",\"files\":").append(fileCount);
+        output.append(",\"errorCount\":").append(errors.size());
+        output.append(",\"diagnostics\":[");
+        for (int i = 0; i < errors.size(); i++) {
+            Error error = errors.get(i);
+            output.append(i == 0 ? "" : ",");
+            output.append("{\"kind\":").append(quote(error.getKind().name()));
+            output.append(",\"file\":").append(error.getFilename() == null ? "null" : quote(error.getFilename()));
+            output.append(",\"line\":").append(error.getLineNum());
+            output.append(",\"message\":").append(quote(error.getMessage())).append("}");
+        }
+        output.append("]");
+        if (result instanceof Map) {
+            output.append(",\"result\":{");
+            String separator = "";
+            for (Map.Entry<?, ?> entry : new TreeMap<Object, Object>((Map<?, ?>) result).entrySet()) {
+                output.append(separator).append(quote(String.valueOf(entry.getKey()))).append(":");
+                Object value = entry.getValue();
+                output.append(value instanceof Number ? value.toString() : quote(String.valueOf(value)));
+                separator = ",";
+            }
+            output.append("}");
+        }
+        else if (result != null) {
+            output.append(",\"result\":").append(result);
+        }
+        output.append("}");
+        this.out.println(output);
+    }
+
+    /**
+     * Helper method to write a String as a JSON string literal.
+     *
+     * @param text the String
+     * @return the JSON string literal, with its quotes
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * File: BatchLexer.java
+ * This file contains the BatchLexer class, scanning many files in parallel.
+ */
+
+package project11DouglasMarcello.bantam.lexer;
+
+import project11DouglasMarcello.bantam.util.CompilationException;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The BatchLexer class scans a list of files on a ForkJoinPool, one task per file.
+ * Each file is scanned into its own TokenBuffer with its own ErrorHandler, so the
+ * tasks share nothing, and the results are always returned in the order the
+ * files were given, however the work was scheduled.
+ */
+public class BatchLexer {
+    /**
+     * The result of scanning one file.
+     */
+    public static class Result {
+        /**
+         * the name of the file
+         */
+        private String filename;
+        /**
+         * the tokens of the file, or null if the file could not be scanned
+         */
+        private TokenBuffer tokens;
+        /**
+         * the errors found in the file
+         */
+        private ErrorHandler errorHandler;
+        /**
+         * the reason the file could not be scanned, or null if it was scanned
+         */
+        private String failure;
+
+        /**
+         * A constructor of the Result class.
+         *
+         * @param filename the name of the file
+         * @param tokens the tokens of the file, or null if the file could not be scanned
+         * @param errorHandler the errors found in the file
+         * @param failure the reason the file could not be scanned, or null if it was scanned
+         */
+        private Result(String filename, TokenBuffer tokens, ErrorHandler errorHandler, String failure) {
+            this.filename = filename;
+            this.tokens = tokens;
+            this.errorHandler = errorHandler;
+            this.failure = failure;
+        }
+
+        /**
+         * Gets the name of the file.
+         *
+         * @return the filename as a String
+         */
+        public String getFilename() { return this.filename; }
+
+        /**
+         * Gets the tokens of the file.
+         *
+         * @return the TokenBuffer holding the tokens, or null if the file could not be scanned
+         */
+        public TokenBuffer getTokens() { return this.tokens; }
+
+        /**
+         * Gets the ErrorHandler holding the errors found in the file.
+         *
+         * @return the ErrorHandler of the file
+         */
+        public ErrorHandler getErrorHandler() { return this.errorHandler; }
+
+        /**
+         * Gets the reason the file could not be scanned at all, such as the file not being found.
+         *
+         * @return the failure message, or null if the file was scanned
+         */
+        public String getFailure() { return this.failure; }
+    }
+
+    /**
+     * the number of files scanned at the same time
+     */
+    private int parallelism;
+
+    /**
+     * A constructor of the BatchLexer class, scanning as many files at a time as there are processors.
+     */
+    public BatchLexer() { this(Runtime.getRuntime().availableProcessors()); }
+
+    /**
+     * A constructor of the BatchLexer class.
+     *
+     * @param parallelism the number of files to scan at the same time
+     */
+    public BatchLexer(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Scans all the given files.
+     *
+     * @param filenames the names of the files to scan
+     * @return the result for each file, in the same order as the filenames
+     */
+    public List<Result> lex(List<String> filenames) {
+        List<Result> results = new ArrayList<>(filenames.size());
+        if (this.parallelism == 1) {
+            for (String filename : filenames) {
+                results.add(lexFile(filename));
+            }
+            return results;
+        }
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>(filenames.size());
+            for (String filename : filenames) {
+                tasks.add(pool.submit(() -> lexFile(filename)));
+            }
+            // joining in submission order is what keeps the results in input order
+            for (ForkJoinTask<Result> task : tasks) {
+                results.add(task.join());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * Registers the errors of all the given results with one ErrorHandler,
+     * file by file in the order of the results.
+     *
+     * @param results the results of a call to lex()
+     * @param handler the ErrorHandler to register the errors with
+     */
+    public static void mergeErrors(List<Result> results, ErrorHandler handler) {
+        for (Result result : results) {
+            handler.registerAll(result.getErrorHandler());
+        }
+    }
+
+    /**
+     * Helper method to scan a single file with its own ErrorHandler.
+     *
+     * @param filename the name of the file
+     * @return the Result for the file
+     */
+    private static Result lexFile(String filename) {
+        ErrorHandler handler = new ErrorHandler();
+        try {
+            TokenBuffer tokens = new TokenBuffer(new Scanner(filename, handler));
+            return new Result(filename, tokens, handler, null);
+        } catch (CompilationException e) {
+            return new Result(filename, null, handler, e.getMessage());
+        }
+    }
+}
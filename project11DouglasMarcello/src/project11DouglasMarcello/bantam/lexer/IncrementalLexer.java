@@ -0,0 +1,158 @@
+/*
+ * File: IncrementalLexer.java
+ * This file contains the IncrementalLexer class, updating the tokens of a file
+ * after an edit by re-scanning only the part of the file the edit affects.
+ */
+
+package project11DouglasMarcello.bantam.lexer;
+
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import project11DouglasMarcello.bantam.lexer.Token.Kind;
+
+/**
+ * The IncrementalLexer class takes the tokens of a file and an edit to the file
+ * and produces the tokens of the edited file without scanning all of it again.
+ *
+ * Scanning any token looks at most one character past its end, so every token
+ * ending before the edit is kept as it is. Scanning restarts at the first token
+ * that could be affected and stops as soon as a new token starts exactly where
+ * an old token after the edit now starts: from that point on the scanner would
+ * see the same characters in the same state, so the rest of the old tokens are
+ * copied over with their offsets and line numbers shifted instead of being scanned.
+ * An edit that opens a block comment or a string that is never closed simply
+ * never resynchronizes, and the rest of the file is scanned.
+ */
+public class IncrementalLexer {
+    /**
+     * the ErrorHandler the errors in the re-scanned tokens are registered with
+     */
+    private ErrorHandler errorHandler;
+    /**
+     * the index of the first token scanned again by the last edit
+     */
+    private int firstChanged;
+    /**
+     * the index in the new buffer just past the last token scanned again by the last edit
+     */
+    private int newChangedEnd;
+    /**
+     * the index in the old buffer of the first token that was kept after the last edit
+     */
+    private int oldChangedEnd;
+
+    /**
+     * A constructor of the IncrementalLexer class.
+     *
+     * @param handler the ErrorHandler to register errors in re-scanned tokens with.
+     *                Errors in tokens that are kept are not registered again.
+     */
+    public IncrementalLexer(ErrorHandler handler) {
+        this.errorHandler = handler;
+    }
+
+    /**
+     * Applies an edit to the source of the given tokens and returns the tokens of the edited source.
+     * The given buffer is not changed.
+     *
+     * @param previous the tokens of the source before the edit
+     * @param offset the index in the old source where the edit starts
+     * @param removedLength the number of characters removed at offset
+     * @param insertedText the text inserted at offset in place of the removed characters
+     * @return a new TokenBuffer holding the tokens of the edited source
+     */
+    public TokenBuffer relex(TokenBuffer previous, int offset, int removedLength, CharSequence insertedText) {
+        int oldLength = previous.getSourceLength();
+        if (offset < 0 || removedLength < 0 || offset + removedLength > oldLength) {
+            throw new IndexOutOfBoundsException("Edit of " + removedLength + " characters at "
+                    + offset + " is outside a source of length " + oldLength);
+        }
+        int editEnd = offset + removedLength;
+        int delta = insertedText.length() - removedLength;
+
+        // build the edited source
+        char[] oldSource = previous.getSource();
+        char[] source = new char[oldLength + delta];
+        System.arraycopy(oldSource, 0, source, 0, offset);
+        for (int i = 0; i < insertedText.length(); i++) {
+            source[offset + i] = insertedText.charAt(i);
+        }
+        System.arraycopy(oldSource, editEnd, source, offset + insertedText.length(), oldLength - editEnd);
+
+        // the first token that could be affected is the first one whose lookahead character
+        // was edited; if the edit is in the whitespace before it, start with the token before
+        int restart = previous.findToken(offset);
+        if (restart > 0 && previous.getStart(restart) > offset) {
+            restart--;
+        }
+        int restartIndex = 0;
+        int restartLine = 1;
+        if (restart > 0 || previous.getStart(0) <= offset) {
+            restartIndex = previous.getStart(restart);
+            restartLine = previous.getLineNum(restart);
+            // a token's line number is taken after its first character is read, so
+            // a token starting with a carriage return is numbered one line later
+            if (restartIndex < oldLength && oldSource[restartIndex] == '\r') {
+                restartLine--;
+            }
+        }
+
+        // sized for a small edit, so the kept tokens are copied only once
+        TokenBuffer tokens = new TokenBuffer(source, source.length, previous.getFilename(), previous.size() + 16);
+        tokens.addShifted(previous, 0, restart, 0, 0);
+        this.firstChanged = restart;
+
+        Scanner scanner = new Scanner(new SourceFile(previous.getFilename(), source, source.length,
+                restartIndex, restartLine), this.errorHandler);
+        // the next old token that lies wholly after the edit, the candidate to resynchronize with
+        int old = restart;
+        while (old < previous.size() && previous.getStart(old) < editEnd) {
+            old++;
+        }
+        while (true) {
+            Token token = scanner.scan();
+            if (token == null) {
+                token = tokens.createEndToken();
+            }
+            int start = token.getOffset();
+            while (old < previous.size() && previous.getStart(old) + delta < start) {
+                old++;
+            }
+            if (old < previous.size() && previous.getStart(old) + delta == start) {
+                this.newChangedEnd = tokens.size();
+                this.oldChangedEnd = old;
+                tokens.addShifted(previous, old, previous.size(), delta, token.position - previous.getLineNum(old));
+                break;
+            }
+            tokens.add(token);
+            if (token.kind == Kind.EOF) {
+                this.newChangedEnd = tokens.size();
+                this.oldChangedEnd = previous.size();
+                break;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Gets the index of the first token that was scanned again by the last call to relex().
+     * All the tokens before it were kept unchanged.
+     *
+     * @return the index of the first changed token, the same in the old and the new buffer
+     */
+    public int getFirstChanged() { return this.firstChanged; }
+
+    /**
+     * Gets the index in the new buffer just past the tokens that were scanned again by the last call to relex().
+     *
+     * @return the end of the changed tokens in the new buffer
+     */
+    public int getNewChangedEnd() { return this.newChangedEnd; }
+
+    /**
+     * Gets the index in the old buffer just past the tokens that were replaced by the last call to relex().
+     * The tokens from here on were kept, shifted by the length and line count of the edit.
+     *
+     * @return the end of the replaced tokens in the old buffer
+     */
+    public int getOldChangedEnd() { return this.oldChangedEnd; }
+}
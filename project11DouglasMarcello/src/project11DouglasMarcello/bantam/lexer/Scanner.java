@@ -13,7 +13,16 @@ import project11DouglasMarcello.bantam.util.Error;
 import project11DouglasMarcello.bantam.util.ErrorHandler;
 import project11DouglasMarcello.bantam.util.CompilationException;
 import project11DouglasMarcello.bantam.lexer.Token.Kind;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The Scanner class taking in a file, splitting it into proper tokens,
@@ -25,6 +34,113 @@ import java.util.List;
  * @author Chris Marcello
  */
 public class Scanner {
+    /**
+     * character classes used to pick the branch of the scanner for the first character of a token
+     */
+    private static final byte OTHER = 0, WHITESPACE = 1, LETTER = 2, DIGIT = 3, QUOTE = 4,
+            SLASH = 5, OPERATOR = 6, PUNCTUATION = 7, END = 8;
+    /**
+     * the maximum number of characters in a string constant, not counting the quotes
+     */
+    private static final int MAX_STRING_LENGTH = 5000;
+    /**
+     * the character class of each ASCII character
+     */
+    private static final byte[] charClasses = new byte[128];
+    /**
+     * for each ASCII character, the kind of the one-character token it forms, if any
+     */
+    private static final Kind[] singleKinds = new Kind[128];
+    /**
+     * for each ASCII character, the spelling of the one-character token it forms, if any
+     */
+    private static final String[] singleSpellings = new String[128];
+    /**
+     * for each ASCII operator character, the second character that makes a two-character operator
+     */
+    private static final char[] secondChars = new char[128];
+    /**
+     * for each ASCII operator character, the kind of the two-character operator it starts
+     */
+    private static final Kind[] doubleKinds = new Kind[128];
+
+    static {
+        charClasses[SourceFile.eof] = END;
+        charClasses[' '] = charClasses['\t'] = charClasses[SourceFile.eol] = WHITESPACE;
+        for (char c = 'a'; c <= 'z'; c++) {
+            charClasses[c] = charClasses[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            charClasses[c] = DIGIT;
+        }
+        charClasses['\"'] = QUOTE;
+        charClasses['/'] = SLASH;
+
+        addPunctuation('*', Kind.MULDIV);
+        addPunctuation('%', Kind.MULDIV);
+        addPunctuation('{', Kind.LCURLY);
+        addPunctuation('}', Kind.RCURLY);
+        addPunctuation('[', Kind.LBRACKET);
+        addPunctuation(']', Kind.RBRACKET);
+        addPunctuation('(', Kind.LPAREN);
+        addPunctuation(')', Kind.RPAREN);
+        addPunctuation('.', Kind.DOT);
+        addPunctuation(',', Kind.COMMA);
+        addPunctuation(';', Kind.SEMICOLON);
+        addPunctuation(':', Kind.COLON);
+
+        addOperator('&', '&', Kind.BINARYLOGIC, null);
+        addOperator('|', '|', Kind.BINARYLOGIC, null);
+        addOperator('-', '-', Kind.UNARYDECR, Kind.PLUSMINUS);
+        addOperator('+', '+', Kind.UNARYINCR, Kind.PLUSMINUS);
+        addOperator('!', '=', Kind.COMPARE, Kind.UNARYNOT);
+        addOperator('=', '=', Kind.COMPARE, Kind.ASSIGN);
+        addOperator('<', '=', Kind.COMPARE, Kind.COMPARE);
+        addOperator('>', '=', Kind.COMPARE, Kind.COMPARE);
+    }
+
+    /**
+     * Adds a character that always forms a one-character token by itself to the tables.
+     *
+     * @param c the character
+     * @param kind the kind of the token it forms
+     */
+    private static void addPunctuation(char c, Kind kind) {
+        charClasses[c] = PUNCTUATION;
+        singleKinds[c] = kind;
+        singleSpellings[c] = Character.toString(c).intern();
+    }
+
+    /**
+     * Adds an operator character that may be followed by a second character to form
+     * a two-character operator to the tables.
+     *
+     * @param first the first character of the operator
+     * @param second the second character of the two-character operator
+     * @param doubleKind the kind of the two-character operator
+     * @param singleKind the kind of the one-character operator, or null if the first character alone is illegal
+     */
+    private static void addOperator(char first, char second, Kind doubleKind, Kind singleKind) {
+        charClasses[first] = OPERATOR;
+        secondChars[first] = second;
+        doubleKinds[first] = doubleKind;
+        singleKinds[first] = singleKind;
+    }
+
+    /**
+     * Gets the character class of a character.
+     * Non-ASCII letters and digits are classed as letters and digits.
+     *
+     * @param c the character
+     * @return the character class of c
+     */
+    private static byte charClass(char c) {
+        if (c < 128) {
+            return charClasses[c];
+        }
+        return Character.isLetter(c) ? LETTER : Character.isDigit(c) ? DIGIT : OTHER;
+    }
+
     /**
      * the SourceFile object that reads a file letter by letter
      */
@@ -43,9 +159,9 @@ public class Scanner {
      */
     private char sourceFileCurrentChar;
     /**
-     * the string constant field needed for generating a string constant token
+     * the index in the source buffer of the first character of the current token
      */
-    private String stringConstant;
+    private int tokenStart;
     /**
      * an integer storing the first line number of the current token.
      */
@@ -58,11 +174,66 @@ public class Scanner {
      * @param handler an ErrorHandler object
      */
     public Scanner(String filename, ErrorHandler handler) {
+        this(new SourceFile(filename), handler);
+    }
+
+    /**
+     * A constructor of the Scanner class scanning text that is already in memory,
+     * such as the contents of an editor, without reading or writing any file.
+     *
+     * @param filename the name used for the text in error messages
+     * @param text the text to be scanned
+     * @param handler an ErrorHandler object
+     */
+    public Scanner(String filename, CharSequence text, ErrorHandler handler) {
+        this(new SourceFile(filename, text), handler);
+    }
+
+    /**
+     * A constructor of the Scanner class scanning everything the given Reader produces.
+     *
+     * @param filename the name used for the text in error messages
+     * @param reader the Reader to take the text from; it is read to the end but not closed
+     * @param handler an ErrorHandler object
+     */
+    public Scanner(String filename, Reader reader, ErrorHandler handler) {
+        this(new SourceFile(filename, reader), handler);
+    }
+
+    /**
+     * A constructor of the Scanner class scanning the given source,
+     * starting wherever the SourceFile is positioned.
+     *
+     * @param sourceFile the SourceFile to be scanned
+     * @param handler an ErrorHandler object
+     */
+    Scanner(SourceFile sourceFile, ErrorHandler handler) {
         this.errorHandler = handler;
-        this.sourceFile = new SourceFile(filename);
+        this.sourceFile = sourceFile;
         this.currentChar = ' ';
     }
 
+    /**
+     * Gets the name of the file being scanned.
+     *
+     * @return the filename as a String
+     */
+    public String getFilename() { return this.sourceFile.getFilename(); }
+
+    /**
+     * Gets the buffer holding the characters being scanned.
+     *
+     * @return the source buffer
+     */
+    char[] getSourceBuffer() { return this.sourceFile.getBuffer(); }
+
+    /**
+     * Gets the number of valid characters in the source buffer.
+     *
+     * @return the length of the source
+     */
+    int getSourceLength() { return this.sourceFile.getLength(); }
+
     /**
      * Helper method to register an error to the error handler.
      *
@@ -94,7 +265,6 @@ public class Scanner {
      * @return the new Token object created
      */
     private Token createNewToken(Token.Kind kind, String spelling, boolean getNextChar) {
-        Token newToken = new Token(kind, spelling, this.position);
         // get the next character as specified
         if (getNextChar) {
             this.currentChar = this.getNextChar();
@@ -103,9 +273,44 @@ public class Scanner {
         else {
             this.currentChar = this.sourceFileCurrentChar;
         }
+        // the token covers everything consumed up to the new current character
+        return new Token(kind, spelling, this.sourceFile.getBuffer(), this.tokenStart,
+                this.sourceFile.getCharIndex() - this.tokenStart, this.position);
+    }
+
+    /**
+     * Helper method to create a new Token whose spelling is the slice of the source buffer
+     * from the start of the current token up to, but not including, the given index.
+     * Gets the next character as specified.
+     *
+     * @param kind the Kind of the Token
+     * @param end the index in the source buffer just past the last character of the Token
+     * @param getNextChar a boolean value indicating whether to get the next character after creating the new Token
+     * @return the new Token object created
+     */
+    private Token createSliceToken(Token.Kind kind, int end, boolean getNextChar) {
+        Token newToken = new Token(kind, this.sourceFile.getBuffer(), this.tokenStart,
+                end - this.tokenStart, this.position);
+        if (getNextChar) {
+            this.currentChar = this.getNextChar();
+        }
+        else {
+            this.currentChar = this.sourceFileCurrentChar;
+        }
         return newToken;
     }
 
+    /**
+     * Helper method to get the spelling of the current token scanned so far,
+     * that is, everything from its first character up to the current character.
+     *
+     * @return the spelling of the current token as a String
+     */
+    private String getCurrentSpelling() {
+        return new String(this.sourceFile.getBuffer(), this.tokenStart,
+                this.sourceFile.getCharIndex() - this.tokenStart);
+    }
+
     /**
      * Helper method to create an ERROR Token and register this error to the error handler.
      *
@@ -120,23 +325,23 @@ public class Scanner {
     }
 
     /**
-     * Helper method to construct a Token for Special Characters that has another special character with the same first letter.
-     * For example, // (line comment) and / (divide), >= (greater or equal to) and > (greater than)
+     * Helper method to construct an operator Token.
+     * Looks at the character following the current one to tell a two-character operator,
+     * such as ++ or <=, from a one-character operator, such as + or <.
+     * Creates an ERROR Token (and registers the error) for a lone & or |.
      *
-     * @param firstChar the first character of the special character(s)
-     * @param secondChar the second character of the special character(s)
-     * @param kind_long the kind of the special character(s) with length two, with the first character equals to firstChar
-     *              and the second character equals to secondChar
-     * @param kind_short the kind of the special character(s) with length one, with the first character equals to firstChar
      * @return the Token constructed
      */
-    private Token constructSpecialCharWithSameFirstLetterToken(char firstChar, char secondChar, Token.Kind kind_long, Token.Kind kind_short) {
-        if (this.getNextChar() == secondChar) {
-            return this.createNewToken(kind_long, Character.toString(firstChar) + Character.toString(secondChar), true);
+    private Token constructOperatorToken() {
+        char firstChar = this.currentChar;
+        if (this.getNextChar() == secondChars[firstChar]) {
+            return this.createSliceToken(doubleKinds[firstChar], this.tokenStart + 2, true);
         }
-        else {
-            return this.createNewToken(kind_short, Character.toString(firstChar), false);
+        Kind kind = singleKinds[firstChar];
+        if (kind == null) {
+            return createAndRegisterErrorToken("Illegal Special Character", Character.toString(firstChar), false);
         }
+        return this.createSliceToken(kind, this.tokenStart + 1, false);
     }
 
     /**
@@ -147,18 +352,18 @@ public class Scanner {
      * @return the Token constructed
      */
     private Token constructIntConstantToken() {
-        String integerConstant = Character.toString(this.currentChar);
+        long value = Character.digit(this.currentChar, 10);
         this.currentChar = this.getNextChar();
         while (Character.isDigit(this.currentChar)) {
-            integerConstant += this.currentChar;
+            if (value <= Integer.MAX_VALUE) {
+                value = value * 10 + Character.digit(this.currentChar, 10);
+            }
             this.currentChar = this.getNextChar();
         }
-        try {
-            Integer.parseInt(integerConstant);
-        } catch (Exception e) {
-            return createAndRegisterErrorToken("Integer Constant Too Large", integerConstant, false);
+        if (value > Integer.MAX_VALUE) {
+            return createAndRegisterErrorToken("Integer Constant Too Large", this.getCurrentSpelling(), false);
         }
-        return this.createNewToken(Kind.INTCONST, integerConstant, false);
+        return this.createSliceToken(Kind.INTCONST, this.sourceFile.getCharIndex(), false);
     }
 
     /**
@@ -169,13 +374,11 @@ public class Scanner {
      * @return the Token constructed
      */
     private Token constructIdentifierToken() {
-        String identifier = Character.toString(this.currentChar);
         this.currentChar = this.getNextChar();
         while (Character.isLetterOrDigit(this.currentChar) || this.currentChar == '_') {
-            identifier += this.currentChar;
             this.currentChar = this.getNextChar();
         }
-        return this.createNewToken(Kind.IDENTIFIER, identifier, false);
+        return this.createSliceToken(Kind.IDENTIFIER, this.sourceFile.getCharIndex(), false);
     }
 
     /**
@@ -185,14 +388,9 @@ public class Scanner {
      * @return the COMMENT Token constructed
      */
     private Token constructLineCommentToken() {
-        String lineComment = "//";
-        this.currentChar = this.getNextChar();
-
-        while (this.currentChar != SourceFile.eol && this.currentChar != SourceFile.eof) {
-            lineComment += this.currentChar;
-            this.currentChar = this.getNextChar();
-        }
-        return this.createNewToken(Kind.COMMENT, lineComment, true);
+        this.sourceFileCurrentChar = this.sourceFile.skipToEndOfLine();
+        this.currentChar = this.sourceFileCurrentChar;
+        return this.createSliceToken(Kind.COMMENT, this.sourceFile.getCharIndex(), true);
     }
 
     /**
@@ -203,17 +401,12 @@ public class Scanner {
      * @return the COMMENT Token constructed
      */
     private Token constructBlockCommentToken() {
-        String blockComment = "/*";
-        this.currentChar = this.getNextChar();
-        while (!(this.currentChar == '*' && this.getNextChar() == '/')) {
-            blockComment += this.currentChar;
-            if (this.getNextChar() == SourceFile.eof) {
-                return createAndRegisterErrorToken("Unterminated Block Comment", blockComment, true);
-            }
-            this.currentChar = this.sourceFileCurrentChar;
+        this.sourceFileCurrentChar = this.sourceFile.skipPastCommentEnd();
+        this.currentChar = this.sourceFileCurrentChar;
+        if (this.currentChar == SourceFile.eof) {
+            return createAndRegisterErrorToken("Unterminated Block Comment", this.getCurrentSpelling(), true);
         }
-        blockComment += "*/";
-        return this.createNewToken(Kind.COMMENT, blockComment, true);
+        return this.createSliceToken(Kind.COMMENT, this.sourceFile.getCharIndex() + 1, true);
     }
 
     /**
@@ -223,79 +416,82 @@ public class Scanner {
      * Creates an unterminated string ERROR Token if the string is not properly terminated.
      * Creates a contains illegal escape characters ERROR Token if the string contains illegal escape characters.
      * Creates a string too long ERROR Token if the string exceeds 5000 characters.
+     * Each character is read exactly once, so scanning is linear in the length of the string.
      *
      * @return the STRCONST Token constructed
      */
     private Token constructStringConstantToken() {
-        this.stringConstant = Character.toString(this.currentChar);
         boolean containIllegalEscapeChar = false;
         this.currentChar = this.getNextChar();
 
-        while (!(this.currentChar == '\"' && !this.isEscaped())) {
+        // escaped quotes are consumed by scanEscapeSequence(), so any quote seen here ends the string
+        while (this.currentChar != '\"') {
             if (this.currentChar == SourceFile.eol) {
-                return createAndRegisterErrorToken("Unterminated String Constant", this.stringConstant, true);
+                return createAndRegisterErrorToken("Unterminated String Constant",
+                        this.getStringSpelling(this.sourceFile.getCharIndex()), true);
             }
             else if (this.currentChar == SourceFile.eof) {
-                return createAndRegisterErrorToken("Unterminated String Constant", this.stringConstant, false);
+                return createAndRegisterErrorToken("Unterminated String Constant",
+                        this.getStringSpelling(this.sourceFile.getCharIndex()), false);
             }
             else if (this.currentChar == '\\' ) {
-                if (!this.isLegalEscapeChars()) {
+                if (!this.scanEscapeSequence()) {
                     containIllegalEscapeChar = true;
                 }
             }
             else {
-                this.stringConstant += this.currentChar;
                 this.currentChar = this.getNextChar();
             }
         }
-        this.stringConstant += "\"";
+        int end = this.sourceFile.getCharIndex() + 1;
 
         if (containIllegalEscapeChar) {
-            return createAndRegisterErrorToken("String Contains Illegal Escape Characters", this.stringConstant, true);
+            return createAndRegisterErrorToken("String Contains Illegal Escape Characters",
+                    this.getStringSpelling(end), true);
         }
-        if (this.stringConstant.length() > 5002) {
-            return createAndRegisterErrorToken("String Exceeds 5000 Characters", this.stringConstant, true);
+        if (end - this.tokenStart > MAX_STRING_LENGTH + 2) {
+            return createAndRegisterErrorToken("String Exceeds 5000 Characters",
+                    this.getStringSpelling(end), true);
         }
-        return this.createNewToken(Kind.STRCONST, this.stringConstant, true);
+        return this.createSliceToken(Kind.STRCONST, end, true);
+    }
+
+    /**
+     * Helper method to get the spelling of a string constant for an ERROR Token.
+     * Strings longer than the limit are cut off after MAX_STRING_LENGTH characters,
+     * so the error spelling stays small however long the string is.
+     *
+     * @param end the index in the source buffer just past the last character of the string
+     * @return the spelling of the string as a String
+     */
+    private String getStringSpelling(int end) {
+        int length = Math.min(end - this.tokenStart, MAX_STRING_LENGTH + 2);
+        String spelling = new String(this.sourceFile.getBuffer(), this.tokenStart, length);
+        return (this.tokenStart + length < end) ? spelling + "..." : spelling;
     }
 
     /**
-     * Helper method to check whether a sequence of characters starting with / are legal escape characters.
-     * And appends the characters being checked to the string constant along the way of examining them.
+     * Helper method to scan a sequence of characters starting with a backslash.
+     * A run of backslashes is consumed together. If the run is of odd length, the last
+     * backslash escapes the character after it, which is consumed too if it is a legal escape.
      *
      * @return  true if they are legal escape characters;
      *          false if they are not legal escape characters
      */
-    private boolean isLegalEscapeChars() {
+    private boolean scanEscapeSequence() {
         int countBackslash = 0;
         while (this.currentChar == '\\') {
             countBackslash++;
-            this.stringConstant += this.currentChar;
             this.currentChar = this.getNextChar();
         }
         if (countBackslash%2 == 0) return true;
-        return  (this.currentChar == 'n') ||
+        if ((this.currentChar == 'n') ||
                 (this.currentChar == 't') ||
                 (this.currentChar == '\"') ||
-                (this.currentChar == 'f');
-    }
-
-    /**
-     * Helper method to determine whether a given character has been escaped in the given source string
-     *
-     * @return a boolean indicating whether or not the character has been escaped
-     */
-    private boolean isEscaped() {
-        int countBackslash = 0;
-        int tmpIndex = this.stringConstant.length() - 1;
-
-        // count the number of consecutive backslashes before the given character
-        while (tmpIndex >= 0 && this.stringConstant.charAt(tmpIndex) == '\\') {
-            countBackslash++;
-            tmpIndex--;
+                (this.currentChar == 'f')) {
+            this.currentChar = this.getNextChar();
+            return true;
         }
-        // if the number of backslashes is odd, then the character is escaped
-        if (countBackslash%2 == 1) return true;
         return false;
     }
 
@@ -309,137 +505,113 @@ public class Scanner {
         try {
 
             // ignore spaces, tabs, or newlines
-            while (this.currentChar == ' ' || this.currentChar == '\t' || this.currentChar == SourceFile.eol) {
-                this.currentChar = this.getNextChar();
+            if (charClass(this.currentChar) == WHITESPACE) {
+                this.sourceFileCurrentChar = this.sourceFile.skipBlanks();
+                this.currentChar = this.sourceFileCurrentChar;
             }
 
-            // store the first line number of the current token.
+            // store the first line number and the index of the first character of the current token.
             this.position = this.sourceFile.getCurrentLineNumber();
-
-            // -------------------- EOF
-            if (this.currentChar == SourceFile.eof) {
-                return this.createNewToken(Token.Kind.EOF, "End of File", false);
-            }
-
-            // -------------------- Line Comment
-            else if (this.currentChar == '/' && this.getNextChar() == '/') {
-                return this.constructLineCommentToken();
-            }
-
-            // -------------------- Block Comment
-            else if (this.currentChar == '/' && this.sourceFileCurrentChar == '*') {
-                return this.constructBlockCommentToken();
+            this.tokenStart = this.sourceFile.getCharIndex();
+
+            switch (charClass(this.currentChar)) {
+                case END:
+                    return this.createNewToken(Token.Kind.EOF, "End of File", false);
+                case LETTER:
+                    return this.constructIdentifierToken();
+                case DIGIT:
+                    return this.constructIntConstantToken();
+                case QUOTE:
+                    return this.constructStringConstantToken();
+                case SLASH:
+                    // line comment, block comment or divide
+                    char nextChar = this.getNextChar();
+                    if (nextChar == '/') {
+                        return this.constructLineCommentToken();
+                    }
+                    else if (nextChar == '*') {
+                        return this.constructBlockCommentToken();
+                    }
+                    return this.createNewToken(Token.Kind.MULDIV, "/", false);
+                case OPERATOR:
+                    return this.constructOperatorToken();
+                case PUNCTUATION:
+                    return this.createNewToken(singleKinds[this.currentChar], singleSpellings[this.currentChar], true);
+                default:
+                    return createAndRegisterErrorToken("Illegal Special Character", Character.toString(this.currentChar), true);
             }
+        }
+        // encounter any compilation error
+        catch (CompilationException error) {
+            System.out.println("Compilation Error!");
+            return null;
+        }
+    }
 
-            // -------------------- Identifiers
-            else if (Character.isLetter(this.currentChar)) {
-                return this.constructIdentifierToken();
+    /**
+     * Returns an iterator over the remaining tokens of the file, including the error tokens.
+     * The EOF token is the last token returned. Each call to next() scans one more token,
+     * so the tokens are never all held in memory at once.
+     *
+     * @return an Iterator over the remaining tokens
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+            /**
+             * the token to be returned by the next call to next(), or null if not scanned yet
+             */
+            private Token nextToken;
+            /**
+             * whether the EOF token has been returned
+             */
+            private boolean done;
+
+            @Override public boolean hasNext() {
+                if (this.done) {
+                    return false;
+                }
+                if (this.nextToken == null) {
+                    this.nextToken = scan();
+                    // scan() returns null if the file could not be scanned
+                    this.done = (this.nextToken == null);
+                }
+                return !this.done;
             }
 
-            // -------------------- Integer constants
-            else if (Character.isDigit(this.currentChar)) {
-                return this.constructIntConstantToken();
+            @Override public Token next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Token token = this.nextToken;
+                this.nextToken = null;
+                this.done = (token.getKind() == Token.Kind.EOF);
+                return token;
             }
+        };
+    }
 
-            // ----------------- String constants
-            else if(this.currentChar == '\"') {
-                return this.constructStringConstantToken();
-            }
+    /**
+     * Returns a sequential Stream of the remaining tokens of the file, including the error tokens.
+     * The EOF token is the last element of the stream.
+     *
+     * @return a Stream of the remaining tokens
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
 
-            // -------------------- Special Characters
-            // &&
-            else if (this.currentChar == '&' && this.getNextChar() == '&') {
-                return this.createNewToken(Token.Kind.BINARYLOGIC, "&&", true);
-            }
-            // ||
-            else if (this.currentChar == '|' && this.getNextChar() == '|') {
-                return this.createNewToken(Token.Kind.BINARYLOGIC, "||", true);
-            }
-            // -- / -
-            else if (this.currentChar == '-') {
-                return this.constructSpecialCharWithSameFirstLetterToken('-', '-', Token.Kind.UNARYDECR, Token.Kind.PLUSMINUS);
-            }
-            // ++ / +
-            else if (this.currentChar == '+') {
-                return this.constructSpecialCharWithSameFirstLetterToken('+', '+', Token.Kind.UNARYINCR, Token.Kind.PLUSMINUS);
-            }
-            // != / !
-            else if (this.currentChar == '!') {
-                return this.constructSpecialCharWithSameFirstLetterToken('!', '=', Token.Kind.COMPARE, Token.Kind.UNARYNOT);
-            }
-            // == / =
-            else if (this.currentChar == '=') {
-                return this.constructSpecialCharWithSameFirstLetterToken('=', '=', Token.Kind.COMPARE, Token.Kind.ASSIGN);
-            }
-            // <= / <
-            else if (this.currentChar == '<') {
-                return this.constructSpecialCharWithSameFirstLetterToken('<', '=', Token.Kind.COMPARE, Token.Kind.COMPARE);
-            }
-            // >= / >
-            else if (this.currentChar == '>') {
-                return this.constructSpecialCharWithSameFirstLetterToken('>', '=', Token.Kind.COMPARE, Token.Kind.COMPARE);
-            }
-            // *
-            else if (this.currentChar == '*') {
-                return this.createNewToken(Token.Kind.MULDIV, "*", true);
-            }
-            // /
-            else if (this.currentChar == '/') {
-                return this.createNewToken(Token.Kind.MULDIV, "/", false);
-            }
-            // %
-            else if (this.currentChar == '%') {
-                return this.createNewToken(Token.Kind.MULDIV, "%", true);
-            }
-            // {
-            else if (this.currentChar == '{') {
-                return this.createNewToken(Token.Kind.LCURLY, "{", true);
-            }
-            // }
-            else if (this.currentChar == '}') {
-                return this.createNewToken(Token.Kind.RCURLY, "}", true);
-            }
-            // [
-            else if (this.currentChar == '[') {
-                return this.createNewToken(Token.Kind.LBRACKET, "[", true);
-            }
-            // ]
-            else if (this.currentChar == ']') {
-                return this.createNewToken(Token.Kind.RBRACKET, "]", true);
-            }
-            // (
-            else if (this.currentChar == '(') {
-                return this.createNewToken(Token.Kind.LPAREN, "(", true);
-            }
-            // )
-            else if (this.currentChar == ')') {
-                return this.createNewToken(Token.Kind.RPAREN, ")", true);
-            }
-            // .
-            else if (this.currentChar == '.') {
-                return this.createNewToken(Token.Kind.DOT, ".", true);
-            }
-            // ,
-            else if (this.currentChar == ',') {
-                return this.createNewToken(Token.Kind.COMMA, ",", true);
-            }
-            // ;
-            else if (this.currentChar == ';') {
-                return this.createNewToken(Token.Kind.SEMICOLON, ";", true);
-            }
-            // :
-            else if (this.currentChar == ':') {
-                return this.createNewToken(Token.Kind.COLON, ":", true);
-            }
-            // Illegal Special Characters
-            else {
-                return createAndRegisterErrorToken("Illegal Special Character", Character.toString(this.currentChar), true);
-            }
-        }
-        // encounter any compilation error
-        catch (CompilationException error) {
-            System.out.println("Compilation Error!");
-            return null;
+    /**
+     * Scans the file and writes every token, including the error tokens, to the given Appendable
+     * as soon as it is scanned, each on a separate line.
+     *
+     * @param out the Appendable to write the tokens to
+     * @throws IOException if writing to out fails
+     */
+    public void scanTo(Appendable out) throws IOException {
+        Iterator<Token> tokens = this.iterator();
+        while (tokens.hasNext()) {
+            out.append(tokens.next().toString());
         }
     }
 
@@ -449,49 +621,90 @@ public class Scanner {
      * @return a String containing all tokens of the given file, each on a separate line, including the error tokens.
      */
     public String scanFile() {
-        Token curToken = null; // the current token
-        String tokenResult = ""; // a String a String containing all tokens of the given file
-
-        // scan the file from the beginning to the end of the file
-        while (curToken == null || (curToken.getKind() != Token.Kind.EOF)) {
-            curToken = this.scan();
-            tokenResult += curToken.toString();
+        StringBuilder tokenResult = new StringBuilder(); // containing all tokens of the given file
+        try {
+            this.scanTo(tokenResult);
+        } catch (IOException e) {
+            // a StringBuilder never throws
         }
-        return tokenResult;
+        return tokenResult.toString();
     }
 
     /**
      * Main function for testing the Scanner class.
+     * With -j N (or --jobs N) before the filenames, N files are scanned at a time;
+     * the output is the same as when they are scanned one after another.
      *
      * @param args command line arguments
      */
     public static void main(String[] args) {
         // command line arguments we used for testing purpose
         // test/test1.java test/test2.java test/test3.java test/test4.java test/badtest.java
-        for (int i=0; i < args.length; i++) {
+        int jobs = 1;
+        int firstFile = 0;
+        if (args.length >= 2 && (args[0].equals("-j") || args[0].equals("--jobs"))) {
+            try {
+                jobs = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                jobs = 0;
+            }
+            if (jobs < 1) {
+                System.out.println("ERROR: The number of jobs must be a positive integer, not " + args[1]);
+                return;
+            }
+            firstFile = 2;
+        }
+        if (jobs > 1) {
+            List<String> filenames = Arrays.asList(args).subList(firstFile, args.length);
+            for (BatchLexer.Result result : new BatchLexer(jobs).lex(filenames)) {
+                System.out.println("\n------------------ " + result.getFilename() + " ------------------" + "\n");
+                TokenBuffer tokens = result.getTokens();
+                if (tokens == null) {
+                    System.out.println("ERROR: Scanning " + result.getFilename() + " failed!");
+                    continue;
+                }
+                StringBuilder output = new StringBuilder();
+                for (int i = 0; i < tokens.size(); i++) {
+                    output.append(tokens.getToken(i).toString());
+                }
+                System.out.println(output);
+                printErrors(result.getErrorHandler().getErrorList());
+            }
+            return;
+        }
+        for (int i = firstFile; i < args.length; i++) {
             String filename = args[i];
             System.out.println("\n------------------ " + filename + " ------------------" + "\n");
             try {
                 ErrorHandler handler = new ErrorHandler();
                 Scanner scanner = new Scanner(filename, handler);
-                System.out.println(scanner.scanFile());
-                List<Error> errorList = handler.getErrorList();
-                for (Error err: errorList){
-                    System.out.println(err.toString());
-                }
-                if (errorList.size()==0){
-                    System.out.println("Scanning was successful!");
-                }
-                else if (errorList.size()==1){
-                    System.out.println("\n1 illegal token was found.");
-                }
-                else{
-                    System.out.println("\n" + errorList.size() + " illegal tokens were found.");
-                }
+                scanner.scanTo(System.out);
+                System.out.println();
+                printErrors(handler.getErrorList());
             }
             catch (Exception e) {
                 System.out.println("ERROR: Scanning " + filename + " failed!");
             }
         }
     }
+
+    /**
+     * Helper method for main to print the errors found in a file, followed by a summary line.
+     *
+     * @param errorList the errors found in the file
+     */
+    private static void printErrors(List<Error> errorList) {
+        for (Error err: errorList){
+            System.out.println(err.toString());
+        }
+        if (errorList.size()==0){
+            System.out.println("Scanning was successful!");
+        }
+        else if (errorList.size()==1){
+            System.out.println("\n1 illegal token was found.");
+        }
+        else{
+            System.out.println("\n" + errorList.size() + " illegal tokens were found.");
+        }
+    }
 }
@@ -18,38 +18,176 @@ package project11DouglasMarcello.bantam.lexer;
 
 import project11DouglasMarcello.bantam.util.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
- * A class for extracting the characters, one at a time, from a text file or an InputStream.
+ * A class for extracting the characters, one at a time, from a text file or from text in memory.
+ * The whole file is decoded into a char array up front, so reading a character
+ * is an array access instead of a call into a Reader. Files larger than the
+ * mapping threshold are memory-mapped and decoded straight from the mapping.
+ * ASCII bytes are copied straight into the array without going through a
+ * charset decoder; the file is only decoded as UTF-8 from the first byte that
+ * is not ASCII, so character indexes match byte offsets up to that point.
  */
 class SourceFile {
     static final char eol = '\n';         // end of line character
     private static final char cr = '\r';  // carriage return character
     static final char eof = '\u0000';     // end of file character
 
-    private Reader sourceReader;   // the reader of the file
+    /**
+     * Default size in bytes above which files are memory-mapped instead of read.
+     * Can be overridden with the bantam.mmap.threshold system property.
+     */
+    static final long DEFAULT_MAPPING_THRESHOLD =
+            Long.getLong("bantam.mmap.threshold", 1024 * 1024);
+
+    private char[] buffer;         // the decoded contents of the file
+    private int length;            // the number of characters in the buffer
+    private int index;             // the index of the next character to be read
     private int currentLineNumber; // for project11DouglasMarcello.bantam.error messages
-    private int prevChar;          // the previous character read
     private String filename;       // the file currently being scanned.
 
     /**
-     * Creates a new SourceFile object for the file with the given name
-     * Note:  You should always call isValid() to check that the SourceFile
-     * was set up properly before calling getNextChar().
+     * Creates a new SourceFile object for the file with the given name,
+     * memory-mapping it if it is larger than the default mapping threshold.
      *
      * @param filename the name of the file to be read.
      */
-    SourceFile(String filename) {
-        try {
-            this.sourceReader = new FileReader(filename);
-        } catch (FileNotFoundException e) {
+    SourceFile(String filename) { this(filename, DEFAULT_MAPPING_THRESHOLD); }
+
+    /**
+     * Creates a new SourceFile object for the file with the given name.
+     *
+     * @param filename the name of the file to be read.
+     * @param mappingThreshold the file size in bytes above which the file is memory-mapped
+     */
+    SourceFile(String filename, long mappingThreshold) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer bytes;
+            if (size > mappingThreshold) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) != -1) { }
+                bytes.flip();
+            }
+            this.decode(bytes);
+        } catch (NoSuchFileException | FileNotFoundException e) {
             throw new CompilationException("File " + filename + " not found.");
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.");
+        }
+        this.index = 0;
+        this.currentLineNumber = 1;
+        this.filename = filename;
+    }
+
+    /**
+     * Creates a new SourceFile object holding the given text, for example the
+     * contents of an editor buffer that has not been saved.
+     *
+     * @param filename the name used for the text in error messages.
+     * @param text the characters to be read.
+     */
+    SourceFile(String filename, CharSequence text) {
+        this.length = text.length();
+        if (text instanceof String) {
+            this.buffer = ((String) text).toCharArray();
+        }
+        else {
+            this.buffer = new char[this.length];
+            for (int i = 0; i < this.length; i++) {
+                this.buffer[i] = text.charAt(i);
+            }
+        }
+        this.index = 0;
+        this.currentLineNumber = 1;
+        this.filename = filename;
+    }
+
+    /**
+     * Creates a new SourceFile object holding everything the given Reader produces.
+     * The reader is read to the end but not closed.
+     *
+     * @param filename the name used for the text in error messages.
+     * @param reader the Reader to take the characters from.
+     */
+    SourceFile(String filename, Reader reader) {
+        this.buffer = new char[8192];
+        try {
+            int count;
+            while ((count = reader.read(this.buffer, this.length, this.buffer.length - this.length)) != -1) {
+                this.length += count;
+                if (this.length == this.buffer.length) {
+                    this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+                }
+            }
+        } catch (IOException e) {
+            throw new CompilationException("File " + filename + " could not be read.");
         }
+        this.index = 0;
         this.currentLineNumber = 1;
-        this.prevChar = -1;
         this.filename = filename;
     }
 
+    /**
+     * Creates a new SourceFile object reading the given buffer from the middle,
+     * used to re-scan part of a file that has already been scanned once.
+     * The starting index must be the start of a line or of a token, so that the
+     * characters before it do not affect how the rest is scanned.
+     *
+     * @param filename the name used for the text in error messages.
+     * @param buffer the buffer holding the text; it is not copied.
+     * @param length the number of valid characters in the buffer.
+     * @param startIndex the index of the first character to be read.
+     * @param startLineNumber the line number of the first character to be read.
+     */
+    SourceFile(String filename, char[] buffer, int length, int startIndex, int startLineNumber) {
+        this.buffer = buffer;
+        this.length = length;
+        this.index = startIndex;
+        this.currentLineNumber = startLineNumber;
+        this.filename = filename;
+    }
+
+    /**
+     * Helper method to fill the buffer from the given bytes.
+     * ASCII bytes are widened to chars directly, a chunk at a time.
+     * From the first non-ASCII byte on, the rest of the bytes are decoded as UTF-8.
+     *
+     * @param bytes the contents of the file
+     */
+    private void decode(ByteBuffer bytes) {
+        // UTF-8 never decodes to more chars than it has bytes
+        this.buffer = new char[bytes.remaining()];
+        byte[] chunk = new byte[Math.min(bytes.remaining(), 1 << 16)];
+        while (bytes.hasRemaining()) {
+            int count = Math.min(chunk.length, bytes.remaining());
+            bytes.get(chunk, 0, count);
+            for (int i = 0; i < count; i++) {
+                byte b = chunk[i];
+                if (b < 0) {
+                    bytes.position(bytes.position() - count + i);
+                    CharBuffer rest = StandardCharsets.UTF_8.decode(bytes);
+                    int restLength = rest.remaining();
+                    rest.get(this.buffer, this.length, restLength);
+                    this.length += restLength;
+                    return;
+                }
+                this.buffer[this.length++] = (char) b;
+            }
+        }
+    }
+
     /**
      * Gets the current line number as an integer.
      *
@@ -65,29 +203,113 @@ class SourceFile {
     String getFilename() { return this.filename; }
 
     /**
-     * Finds and returns the next character in the source file.
-     * If the end of the file has been reached or an exception occurs,
-     * then an exception is thrown.
-     * If the character is the cr character or the eol char not preceded by the cr
-     * character, the current line number is also incremented.
+     * Gets the index of the character most recently returned by getNextChar().
+     * Once the end of the file has been reached, this is the length of the buffer.
      *
-     * @return the next character in the source file
+     * @return the index of the most recently read character in the buffer
      */
-    char getNextChar(){
-        try {
-            int c = this.sourceReader.read();
+    int getCharIndex() { return this.index - 1; }
+
+    /**
+     * Gets the buffer holding the contents of the file.
+     * Only the first getLength() characters of the buffer are valid.
+     *
+     * @return the char array holding the file contents
+     */
+    char[] getBuffer() { return this.buffer; }
+
+    /**
+     * Gets the number of characters in the file.
+     *
+     * @return the number of valid characters in the buffer
+     */
+    int getLength() { return this.length; }
+
+    /**
+     * Skips a run of spaces, tabs and newlines and returns the first character after it,
+     * as if getNextChar() had been called until a character that is not blank came up.
+     *
+     * @return the first character that is not a space, tab or newline, or eof
+     */
+    char skipBlanks() {
+        while (this.index < this.length) {
+            char c = this.buffer[this.index++];
+            if (c == eol) {
+                if (this.index == 1 || this.buffer[this.index - 2] != cr) {
+                    this.currentLineNumber++;
+                }
+            }
+            else if (c != ' ' && c != '\t') {
+                if (c == cr) {
+                    this.currentLineNumber++;
+                }
+                return c;
+            }
+        }
+        this.index = this.length + 1;
+        return eof;
+    }
+
+    /**
+     * Skips to the end of the current line and returns the eol character ending it,
+     * as if getNextChar() had been called until eol or eof came up.
+     *
+     * @return the eol character, or eof if the file ends first
+     */
+    char skipToEndOfLine() {
+        for (int i = this.index; i < this.length; i++) {
+            char c = this.buffer[i];
+            if (c == eol) {
+                this.index = i;
+                return this.getNextChar();
+            }
+            if (c == cr) {
+                this.currentLineNumber++;
+            }
+        }
+        this.index = this.length + 1;
+        return eof;
+    }
 
-            if (c == -1) {
-                c = eof;
+    /**
+     * Skips past the next '*' followed by '/' and returns the '/',
+     * as if getNextChar() had been called until the end of a block comment.
+     *
+     * @return the '/' ending the block comment, or eof if the file ends first
+     */
+    char skipPastCommentEnd() {
+        for (int i = this.index; i < this.length; i++) {
+            char c = this.buffer[i];
+            if (c == '*' && i + 1 < this.length && this.buffer[i + 1] == '/') {
+                this.index = i + 2;
+                return '/';
             }
-            else if (c == cr || (c == eol && this.prevChar != cr)) {
+            if (c == cr || (c == eol && (i == 0 || this.buffer[i - 1] != cr))) {
                 this.currentLineNumber++;
             }
-            this.prevChar = c;
-            return (char) c;
-        } catch (IOException e) {
-            throw new CompilationException("File " + this.filename + " could not be read.");
         }
+        this.index = this.length + 1;
+        return eof;
     }
-}
 
+    /**
+     * Finds and returns the next character in the source file.
+     * If the end of the file has been reached, the eof character is returned.
+     * If the character is the cr character or the eol char not preceded by the cr
+     * character, the current line number is also incremented.
+     *
+     * @return the next character in the source file
+     */
+    char getNextChar() {
+        if (this.index >= this.length) {
+            this.index = this.length + 1;
+            return eof;
+        }
+        char c = this.buffer[this.index];
+        if (c == cr || (c == eol && (this.index == 0 || this.buffer[this.index - 1] != cr))) {
+            this.currentLineNumber++;
+        }
+        this.index++;
+        return c;
+    }
+}
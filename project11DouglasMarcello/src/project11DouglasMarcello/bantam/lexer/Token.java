@@ -15,38 +15,115 @@
 
  package project11DouglasMarcello.bantam.lexer;
 
- import java.util.Set;
-
  /**
   * The Token class.
   */
  public class Token {
      //instance variables
      public Kind kind; // an enum type of the token
-     public String spelling; // the actual sequence of chars in the token
      public int position; // the line number where the token was found
+     private String spelling; // the actual sequence of chars in the token, built on demand
+     private char[] source; // the source buffer the token was scanned from
+     private int offset; // the index of the first char of the token in the source buffer
+     private int length; // the number of chars of the token in the source buffer
+
+     /**
+      * Constructor of the Token class for a token that is a slice of the source buffer.
+      * The spelling is only built if getSpelling() is called.
+      *
+      * @param kind the emum type of the token
+      * @param source the source buffer the token was scanned from
+      * @param offset the index of the first char of the token in the source buffer
+      * @param length the number of chars of the token
+      * @param position the position of the token as an int
+      */
+     Token(Kind kind, char[] source, int offset, int length, int position) {
+         this(kind, null, source, offset, length, position);
+     }
 
      /**
       * Constructor of the Token class.
       *
       * @param kind the emum type of the token
-      * @param spelling the spelling of the token as a String
+      * @param spelling the spelling of the token as a String,
+      *                 or null to use the slice of the source buffer
+      * @param source the source buffer the token was scanned from
+      * @param offset the index of the first char of the token in the source buffer
+      * @param length the number of chars of the source buffer covered by the token
       * @param position the position of the token as an int
       */
-     Token(Kind kind, String spelling, int position) {
+     Token(Kind kind, String spelling, char[] source, int offset, int length, int position) {
          this.spelling = spelling;
+         this.source = source;
+         this.offset = offset;
+         this.length = length;
          this.position = position;
+         this.kind = (kind == Kind.IDENTIFIER) ? identifierKind(source, offset, length) : kind;
+     }
 
-         // patch the kind in the case of boolean constants and keywords
-         if (kind == Kind.IDENTIFIER && (spelling.equals("true") || spelling.equals("false"))) {
-             this.kind = Kind.BOOLEAN;
-         }
-         else if (kind == Kind.IDENTIFIER && reservedWords.contains(spelling)) {
-             this.kind = Enum.valueOf(Kind.class, spelling.toUpperCase());
+     /**
+      * Patches the kind of an identifier in the case of boolean constants and keywords.
+      * The reserved words are break, cast, class, var, else, extends, for, if, instanceof,
+      * new, return, while, this and super. They are told apart by a switch on the length
+      * and the first char, so at most two words are compared and no String is built.
+      *
+      * @param source the buffer holding the identifier
+      * @param offset the index of the first char of the identifier
+      * @param length the number of chars of the identifier
+      * @return BOOLEAN, the kind of the reserved word, or IDENTIFIER
+      */
+     private static Kind identifierKind(char[] source, int offset, int length) {
+         char first = source[offset];
+         switch (length) {
+             case 2:
+                 if (first == 'i' && source[offset + 1] == 'f') return Kind.IF;
+                 break;
+             case 3:
+                 if (first == 'f' && matches("or", source, offset + 1)) return Kind.FOR;
+                 if (first == 'n' && matches("ew", source, offset + 1)) return Kind.NEW;
+                 if (first == 'v' && matches("ar", source, offset + 1)) return Kind.VAR;
+                 break;
+             case 4:
+                 if (first == 'c' && matches("ast", source, offset + 1)) return Kind.CAST;
+                 if (first == 'e' && matches("lse", source, offset + 1)) return Kind.ELSE;
+                 if (first == 't' && matches("his", source, offset + 1)) return Kind.THIS;
+                 if (first == 't' && matches("rue", source, offset + 1)) return Kind.BOOLEAN;
+                 break;
+             case 5:
+                 if (first == 'b' && matches("reak", source, offset + 1)) return Kind.BREAK;
+                 if (first == 'c' && matches("lass", source, offset + 1)) return Kind.CLASS;
+                 if (first == 'f' && matches("alse", source, offset + 1)) return Kind.BOOLEAN;
+                 if (first == 's' && matches("uper", source, offset + 1)) return Kind.SUPER;
+                 if (first == 'w' && matches("hile", source, offset + 1)) return Kind.WHILE;
+                 break;
+             case 6:
+                 if (first == 'r' && matches("eturn", source, offset + 1)) return Kind.RETURN;
+                 break;
+             case 7:
+                 if (first == 'e' && matches("xtends", source, offset + 1)) return Kind.EXTENDS;
+                 break;
+             case 10:
+                 if (first == 'i' && matches("nstanceof", source, offset + 1)) return Kind.INSTANCEOF;
+                 break;
          }
-         else {
-             this.kind = kind;
+         return Kind.IDENTIFIER;
+     }
+
+     /**
+      * Checks whether the chars of a source buffer starting at an offset spell the given rest of a word.
+      *
+      * @param rest the remaining chars of the word to compare to
+      * @param source the buffer holding the chars
+      * @param offset the index of the first char to compare
+      * @return true if the chars spell the rest of the word
+      */
+     private static boolean matches(String rest, char[] source, int offset) {
+         for (int i = 0; i < rest.length(); i++) {
+             if (rest.charAt(i) != source[offset + i]) {
+                 return false;
+             }
          }
+         return true;
      }
 
      /**
@@ -56,7 +133,7 @@
       */
      public String toString() {
          return "Token: Kind = " + this.kind.name() + ", spelling = " +
-                 this.spelling + ", " + "position = " + this.position + "\n";
+                 this.getSpelling() + ", " + "position = " + this.position + "\n";
      }
 
      /**
@@ -68,12 +145,31 @@
          return this.kind;
      }
 
+     /**
+      * Gets the index of the first char of the token in the source buffer.
+      *
+      * @return the offset of the token
+      */
+     public int getOffset() { return this.offset; }
+
+     /**
+      * Gets the number of chars of the source buffer covered by the token.
+      *
+      * @return the length of the token in the source
+      */
+     public int getLength() { return this.length; }
+
      /**
       * Get the spelling of the token in a String.
       *
       * @return the token as a String.
       */
-     public String getSpelling() { return this.spelling; }
+     public String getSpelling() {
+         if (this.spelling == null) {
+             this.spelling = new String(this.source, this.offset, this.length);
+         }
+         return this.spelling;
+     }
 
      /**
       * Definition of the enum type fo the Token.
@@ -100,11 +196,4 @@
          RETURN, WHILE, THIS, SUPER
      }
 
-     /**
-      * Definition of a set of keywords.
-      */
-     private static Set<String> reservedWords = Set.of("break", "cast", "class", "var",
-             "else", "extends", "for", "if", "instanceof", "new", "return", "while",
-             "this", "super");
-
  }
@@ -0,0 +1,370 @@
+/*
+ * File: TokenBuffer.java
+ * This file contains the TokenBuffer class, holding all the tokens of a file
+ * in parallel primitive arrays.
+ */
+
+package project11DouglasMarcello.bantam.lexer;
+
+import project11DouglasMarcello.bantam.lexer.Token.Kind;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The TokenBuffer class lexes a whole file up front and stores its tokens as
+ * parallel arrays of kinds, start and end offsets and line numbers, instead of
+ * one Token object per token. Tokens are addressed by index, which allows
+ * random-access lookahead and rewinding the cursor to any earlier token.
+ * The last token in the buffer is always an EOF token.
+ */
+public class TokenBuffer {
+    /**
+     * all the Kind values, indexed by ordinal
+     */
+    private static final Kind[] kindValues = Kind.values();
+
+    /**
+     * the source buffer the tokens were scanned from
+     */
+    private char[] source;
+    /**
+     * the number of valid characters in the source buffer
+     */
+    private int sourceLength;
+    /**
+     * the name of the file the tokens were scanned from
+     */
+    private String filename;
+    /**
+     * the ordinal of the Kind of each token
+     */
+    private byte[] kinds;
+    /**
+     * the index in the source buffer of the first character of each token
+     */
+    private int[] starts;
+    /**
+     * the index in the source buffer just past the last character of each token
+     */
+    private int[] ends;
+    /**
+     * the line number of each token
+     */
+    private int[] lines;
+    /**
+     * the spellings of the tokens that are not slices of the source (errors and EOF)
+     */
+    private Map<Integer, String> spellings;
+    /**
+     * the number of tokens in the buffer
+     */
+    private int size;
+    /**
+     * the index of the current token
+     */
+    private int cursor;
+
+    /**
+     * Creates a TokenBuffer holding every token the given scanner produces,
+     * comments included, up to and including the EOF token.
+     * Errors are registered with the scanner's error handler as usual.
+     *
+     * @param scanner the Scanner to take the tokens from
+     */
+    public TokenBuffer(Scanner scanner) {
+        // roughly one token every five characters in typical source
+        this(scanner.getSourceBuffer(), scanner.getSourceLength(), scanner.getFilename(),
+                Math.max(16, scanner.getSourceLength() / 5));
+        this.addAll(scanner);
+        this.trimToSize();
+    }
+
+    /**
+     * Creates an empty TokenBuffer over the given source, to be filled with add() and addAll().
+     *
+     * @param source the source buffer the tokens are scanned from
+     * @param sourceLength the number of valid characters in the source buffer
+     * @param filename the name of the file the tokens are scanned from
+     * @param capacity the initial number of tokens the buffer can hold
+     */
+    TokenBuffer(char[] source, int sourceLength, String filename, int capacity) {
+        this.source = source;
+        this.sourceLength = sourceLength;
+        this.filename = filename;
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lines = new int[capacity];
+        this.spellings = new HashMap<>();
+    }
+
+    /**
+     * Appends every remaining token the given scanner produces, up to and including the EOF token.
+     *
+     * @param scanner the Scanner to take the tokens from
+     */
+    void addAll(Scanner scanner) {
+        Token token;
+        do {
+            token = scanner.scan();
+            if (token == null) {
+                // the scanner gave up, so end the buffer where it stopped
+                token = this.createEndToken();
+            }
+            this.add(token);
+        } while (token.kind != Kind.EOF);
+    }
+
+    /**
+     * Creates an EOF token just past the last token in the buffer.
+     *
+     * @return the EOF Token
+     */
+    Token createEndToken() {
+        int end = (this.size == 0) ? 0 : this.ends[this.size - 1];
+        return new Token(Kind.EOF, "End of File", this.source, end, 0,
+                (this.size == 0) ? 1 : this.lines[this.size - 1]);
+    }
+
+    /**
+     * Appends a token to the end of the buffer, growing the arrays if needed.
+     *
+     * @param token the Token to append
+     */
+    void add(Token token) {
+        this.ensureCapacity(1);
+        this.kinds[this.size] = (byte) token.kind.ordinal();
+        this.starts[this.size] = token.getOffset();
+        this.ends[this.size] = token.getOffset() + token.getLength();
+        this.lines[this.size] = token.position;
+        if (token.kind == Kind.ERROR || token.kind == Kind.EOF) {
+            this.spellings.put(this.size, token.getSpelling());
+        }
+        this.size++;
+    }
+
+    /**
+     * Appends tokens copied from another buffer, moved by the given number of
+     * characters and lines, without scanning them again.
+     *
+     * @param other the buffer to copy the tokens from
+     * @param from the index in the other buffer of the first token to copy
+     * @param to the index in the other buffer just past the last token to copy
+     * @param offsetDelta the number of characters to move the tokens by
+     * @param lineDelta the number of lines to move the tokens by
+     */
+    void addShifted(TokenBuffer other, int from, int to, int offsetDelta, int lineDelta) {
+        int count = to - from;
+        this.ensureCapacity(count);
+        System.arraycopy(other.kinds, from, this.kinds, this.size, count);
+        System.arraycopy(other.starts, from, this.starts, this.size, count);
+        System.arraycopy(other.ends, from, this.ends, this.size, count);
+        System.arraycopy(other.lines, from, this.lines, this.size, count);
+        for (int i = this.size; i < this.size + count; i++) {
+            this.starts[i] += offsetDelta;
+            this.ends[i] += offsetDelta;
+            this.lines[i] += lineDelta;
+        }
+        // only the few error and EOF tokens have their own spellings
+        for (Map.Entry<Integer, String> entry : other.spellings.entrySet()) {
+            int index = entry.getKey();
+            if (index >= from && index < to) {
+                this.spellings.put(index - from + this.size, entry.getValue());
+            }
+        }
+        this.size += count;
+    }
+
+    /**
+     * Helper method to make room for more tokens, growing the arrays by at least half if they are too small.
+     *
+     * @param count the number of tokens about to be added
+     */
+    private void ensureCapacity(int count) {
+        if (this.size + count > this.kinds.length) {
+            int capacity = Math.max(this.size + count, this.size + (this.size >> 1) + 1);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.lines = Arrays.copyOf(this.lines, capacity);
+        }
+    }
+
+    /**
+     * Shrinks the arrays to the number of tokens in the buffer.
+     */
+    void trimToSize() {
+        this.kinds = Arrays.copyOf(this.kinds, this.size);
+        this.starts = Arrays.copyOf(this.starts, this.size);
+        this.ends = Arrays.copyOf(this.ends, this.size);
+        this.lines = Arrays.copyOf(this.lines, this.size);
+    }
+
+    /**
+     * Gets the number of tokens in the buffer, including the EOF token.
+     *
+     * @return the number of tokens
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Gets the name of the file the tokens were scanned from.
+     *
+     * @return the filename as a String
+     */
+    public String getFilename() { return this.filename; }
+
+    /**
+     * Gets the source buffer the tokens were scanned from.
+     * Only the first getSourceLength() characters of the buffer are valid.
+     *
+     * @return the source buffer
+     */
+    char[] getSource() { return this.source; }
+
+    /**
+     * Gets the number of characters in the source the tokens were scanned from.
+     *
+     * @return the length of the source
+     */
+    public int getSourceLength() { return this.sourceLength; }
+
+    /**
+     * Finds the first token that ends at or after the given index in the source.
+     *
+     * @param offset an index in the source
+     * @return the index of the first token whose end offset is at least offset,
+     *         or the index of the EOF token if there is none
+     */
+    public int findToken(int offset) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.ends[middle] < offset) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the kind of the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the Kind of the token
+     */
+    public Kind getKind(int index) { return kindValues[this.kinds[index]]; }
+
+    /**
+     * Gets the index in the source of the first character of the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the start offset of the token
+     */
+    public int getStart(int index) { return this.starts[index]; }
+
+    /**
+     * Gets the index in the source just past the last character of the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the end offset of the token
+     */
+    public int getEnd(int index) { return this.ends[index]; }
+
+    /**
+     * Gets the line number of the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the line number of the token
+     */
+    public int getLineNum(int index) { return this.lines[index]; }
+
+    /**
+     * Gets the spelling of the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the spelling of the token as a String
+     */
+    public String getSpelling(int index) {
+        String spelling = this.spellings.get(index);
+        if (spelling == null) {
+            spelling = new String(this.source, this.starts[index], this.ends[index] - this.starts[index]);
+        }
+        return spelling;
+    }
+
+    /**
+     * Gets the message of the lexical error an ERROR token stands for.
+     * The spelling of an ERROR token is the message followed by ": " and the illegal text,
+     * and the message is the one the scanner registered when it created the token.
+     *
+     * @param index the index of an ERROR token
+     * @return the error message as a String
+     */
+    public String getErrorMessage(int index) {
+        String spelling = this.getSpelling(index);
+        int colon = spelling.indexOf(": ");
+        return colon < 0 ? spelling : spelling.substring(0, colon);
+    }
+
+    /**
+     * Creates a Token object for the token at the given index.
+     *
+     * @param index the index of the token
+     * @return the Token at that index
+     */
+    public Token getToken(int index) {
+        return new Token(this.getKind(index), this.spellings.get(index), this.source,
+                this.starts[index], this.ends[index] - this.starts[index], this.lines[index]);
+    }
+
+    /**
+     * Gets the index of the current token.
+     * The value can be passed to reset() later to rewind to this token.
+     *
+     * @return the cursor position
+     */
+    public int mark() { return this.cursor; }
+
+    /**
+     * Moves the cursor back (or forward) to the token at the given index.
+     *
+     * @param index the index of the token to make current, usually obtained from mark()
+     */
+    public void reset(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Token index " + index + " out of range");
+        }
+        this.cursor = index;
+    }
+
+    /**
+     * Gets the kind of the token the given number of tokens after the current one.
+     * Looking past the end of the buffer gives EOF.
+     *
+     * @param lookahead how many tokens to look ahead, 0 for the current token
+     * @return the Kind of that token
+     */
+    public Kind peek(int lookahead) {
+        return this.getKind(Math.min(this.cursor + lookahead, this.size - 1));
+    }
+
+    /**
+     * Gets the current token and moves the cursor to the next one.
+     * Once the cursor reaches the EOF token it stays there.
+     *
+     * @return the current Token
+     */
+    public Token next() {
+        Token token = this.getToken(this.cursor);
+        if (this.cursor < this.size - 1) {
+            this.cursor++;
+        }
+        return token;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * File: AstCache.java
+ * This file contains the AstCache class, keeping the ASTs of recently parsed
+ * files so that parsing the same text again is a lookup.
+ */
+
+package project11DouglasMarcello.bantam.parser;
+
+import project11DouglasMarcello.bantam.ast.Program;
+import project11DouglasMarcello.bantam.lexer.Scanner;
+import project11DouglasMarcello.bantam.lexer.TokenBuffer;
+import project11DouglasMarcello.bantam.util.Error;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AstCache class maps a file path to the AST of the text last parsed under it.
+ * Each entry also holds a SHA-256 hash of that text, so a lookup with the same path
+ * and the same text returns the cached AST, and a lookup with changed text parses
+ * it again and replaces the entry.
+ *
+ * The cache has a memory budget. The size of each entry is estimated from its
+ * number of tokens, and when the entries add up to more than the budget, the least
+ * recently used ones are evicted. The entry just added is always kept.
+ *
+ * The cached ASTs are shared by everyone who looks them up, so they must not be changed.
+ * The cache is thread-safe; files are parsed outside the lock.
+ */
+public class AstCache {
+    /**
+     * Default memory budget in bytes.
+     * Can be overridden with the bantam.astcache.budget system property.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET =
+            Long.getLong("bantam.astcache.budget", 64L * 1024 * 1024);
+
+    /**
+     * the estimated number of bytes an AST takes per token of its source
+     */
+    private static final long BYTES_PER_TOKEN = 64;
+
+    /**
+     * An AST in the cache, with the errors found while parsing it.
+     */
+    public static class Entry {
+        /**
+         * the hash of the text the AST was parsed from
+         */
+        private byte[] hash;
+        /**
+         * the root of the AST
+         */
+        private Program program;
+        /**
+         * the errors found while parsing the text
+         */
+        private List<Error> errors;
+        /**
+         * the estimated size of the entry in bytes
+         */
+        private long size;
+
+        /**
+         * A constructor of the Entry class.
+         *
+         * @param hash the hash of the text the AST was parsed from
+         * @param program the root of the AST
+         * @param errors the errors found while parsing the text
+         * @param size the estimated size of the entry in bytes
+         */
+        private Entry(byte[] hash, Program program, List<Error> errors, long size) {
+            this.hash = hash;
+            this.program = program;
+            this.errors = errors;
+            this.size = size;
+        }
+
+        /**
+         * Gets the root of the AST.
+         *
+         * @return the Program node
+         */
+        public Program getProgram() { return this.program; }
+
+        /**
+         * Gets the errors found while parsing the text.
+         *
+         * @return an unmodifiable list of the errors, empty if the text was parsed without errors
+         */
+        public List<Error> getErrors() { return this.errors; }
+    }
+
+    /**
+     * the entries by path, from the least to the most recently used
+     */
+    private Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * the memory budget in bytes
+     */
+    private long memoryBudget;
+    /**
+     * the estimated total size of the entries in bytes
+     */
+    private long usedMemory;
+    /**
+     * the number of lookups answered from the cache
+     */
+    private long hits;
+    /**
+     * the number of lookups that had to parse
+     */
+    private long misses;
+
+    /**
+     * A constructor of the AstCache class with the default memory budget.
+     */
+    public AstCache() { this(DEFAULT_MEMORY_BUDGET); }
+
+    /**
+     * A constructor of the AstCache class.
+     *
+     * @param memoryBudget the estimated number of bytes the cached ASTs may take up
+     */
+    public AstCache(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative, not " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Gets the AST of the given text, parsing it only if the text is not the one
+     * last cached under the given path.
+     *
+     * @param filename the path of the file, also used for the text in the AST and in error messages
+     * @param text the Bantam Java source
+     * @return the Entry holding the AST and the errors of the text
+     */
+    public Entry get(String filename, CharSequence text) {
+        byte[] hash = hash(text);
+        synchronized (this) {
+            Entry entry = this.entries.get(filename);
+            if (entry != null && Arrays.equals(entry.hash, hash)) {
+                this.hits++;
+                return entry;
+            }
+            this.misses++;
+        }
+
+        ErrorHandler errorHandler = new ErrorHandler();
+        TokenBuffer tokens = new TokenBuffer(new Scanner(filename, text, new ErrorHandler()));
+        Program program = new Parser(errorHandler).parse(tokens);
+        Entry entry = new Entry(hash, program, errorHandler.getErrorList(), tokens.size() * BYTES_PER_TOKEN);
+
+        synchronized (this) {
+            Entry previous = this.entries.put(filename, entry);
+            if (previous != null) {
+                this.usedMemory -= previous.size;
+            }
+            this.usedMemory += entry.size;
+            this.evict();
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the entry of the given path, if there is one.
+     *
+     * @param filename the path of the file
+     */
+    public synchronized void invalidate(String filename) {
+        Entry entry = this.entries.remove(filename);
+        if (entry != null) {
+            this.usedMemory -= entry.size;
+        }
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.usedMemory = 0;
+    }
+
+    /**
+     * Gets the estimated total size of the cached ASTs.
+     *
+     * @return the estimated number of bytes used
+     */
+    public synchronized long getUsedMemory() { return this.usedMemory; }
+
+    /**
+     * Gets the number of lookups answered from the cache so far.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHits() { return this.hits; }
+
+    /**
+     * Gets the number of lookups that had to parse so far.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() { return this.misses; }
+
+    /**
+     * Helper method to evict the least recently used entries until the cache fits
+     * its memory budget, keeping the most recently used one.
+     */
+    private void evict() {
+        Iterator<Entry> eldest = this.entries.values().iterator();
+        while (this.usedMemory > this.memoryBudget && this.entries.size() > 1) {
+            this.usedMemory -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of the UTF-8 encoding of the given text.
+     *
+     * @param text the text
+     * @return the 32 bytes of the hash
+     */
+    public static byte[] hash(CharSequence text) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * File: AstFileCache.java
+ * This file contains the AstFileCache class, saving the ASTs of parsed files
+ * next to them so that unchanged files need not be parsed again.
+ */
+
+package project11DouglasMarcello.bantam.parser;
+
+import project11DouglasMarcello.bantam.ast.CompactAst;
+import project11DouglasMarcello.bantam.ast.Program;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The AstFileCache class parses a file through a .btmc file saved next to it.
+ * The .btmc file holds the AST as a CompactAst, with a SHA-256 hash of the path
+ * and the contents of the source. If the hash still matches, the AST is loaded from the
+ * .btmc file instead of parsing the source. Otherwise the source is parsed and,
+ * if it has no errors, the .btmc file is written for next time.
+ *
+ * A .btmc file that cannot be read or written is treated as missing, since the
+ * cache only saves time and is never needed for a correct result.
+ */
+public class AstFileCache {
+    /**
+     * the extension of the files holding saved ASTs
+     */
+    public static final String EXTENSION = ".btmc";
+
+    /**
+     * Gets the path of the .btmc file for the given source file:
+     * the same name with .btmc added, so that foo.btm and foo.java
+     * in the same directory have different .btmc files.
+     *
+     * @param source the path of the source file
+     * @return the path of the .btmc file
+     */
+    public static Path getCachePath(Path source) {
+        return source.resolveSibling(source.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Parses the given file, or loads its AST from its .btmc file if the file has not
+     * changed since the .btmc file was written.
+     * A loaded AST is read-only: its nodes are views of a CompactAst.
+     *
+     * @param source the path of the Bantam Java file
+     * @param errorHandler the ErrorHandler to register the errors of the file with
+     * @return the Program node forming the root of the AST
+     * @throws project11DouglasMarcello.bantam.util.CompilationException if the file cannot be read
+     */
+    public static Program parse(Path source, ErrorHandler errorHandler) {
+        String filename = source.toString();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(source);
+        } catch (IOException e) {
+            // let the parser report the missing or unreadable file the usual way
+            return new Parser(errorHandler).parse(filename);
+        }
+        byte[] hash = hash(filename, bytes);
+        Path cachePath = getCachePath(source);
+        if (Files.isRegularFile(cachePath)) {
+            try {
+                CompactAst ast = CompactAst.read(cachePath, hash);
+                if (ast != null) {
+                    return ast.getRoot();
+                }
+            } catch (IOException e) {
+                // a damaged file is replaced below
+            }
+        }
+
+        Program program = new Parser(errorHandler).parse(filename, new String(bytes, StandardCharsets.UTF_8));
+        if (!errorHandler.errorsFound()) {
+            try {
+                CompactAst.encode(program).write(cachePath, hash);
+            } catch (IOException e) {
+                // the AST will just be parsed again next time
+            }
+        }
+        return program;
+    }
+
+    /**
+     * Helper method to hash the path and the contents of a source file together,
+     * so that a .btmc file is not used for a file that was moved or renamed,
+     * whose classes would otherwise keep the old filename.
+     *
+     * @param filename the path of the source file
+     * @param bytes the contents of the file
+     * @return the hash
+     */
+    private static byte[] hash(String filename, byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(filename.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
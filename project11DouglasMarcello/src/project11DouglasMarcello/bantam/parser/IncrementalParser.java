@@ -0,0 +1,320 @@
+/*
+ * File: IncrementalParser.java
+ * This file contains the IncrementalParser class, updating the AST of a file
+ * after an edit by reparsing only the member or class the edit is in.
+ */
+
+package project11DouglasMarcello.bantam.parser;
+
+import project11DouglasMarcello.bantam.ast.*;
+import project11DouglasMarcello.bantam.lexer.IncrementalLexer;
+import project11DouglasMarcello.bantam.lexer.Scanner;
+import project11DouglasMarcello.bantam.lexer.TokenBuffer;
+import project11DouglasMarcello.bantam.util.ErrorHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The IncrementalParser class keeps the AST of a file up to date as the file is edited.
+ *
+ * It remembers the range of tokens behind every class and member. After an edit,
+ * the tokens are updated by an IncrementalLexer, and only the smallest member
+ * (or, failing that, the class) that contains all the changed tokens is parsed again.
+ * The new node replaces the old one in its MemberList or ClassList, and every other
+ * node is kept as it is, with its line number moved if the edit added or removed lines.
+ * Since classes and members are parsed without looking at the tokens around them,
+ * the result is the same AST a parse of the whole file would give.
+ *
+ * The whole file is parsed again instead when the edit is not inside a single class,
+ * when the reparsed member or class does not end where the old one ended, or when
+ * there are errors, before or after the edit, since errors can reach across members.
+ */
+public class IncrementalParser {
+    /**
+     * The token ranges of a class and of its members.
+     */
+    private static class ClassEntry {
+        /**
+         * the index of the first token of the class
+         */
+        private int start;
+        /**
+         * the index just past the last token of the class
+         */
+        private int end;
+        /**
+         * the index of the first token of each member, in the order of the MemberList
+         */
+        private int[] memberStarts;
+        /**
+         * the index just past the last token of each member
+         */
+        private int[] memberEnds;
+    }
+
+    /**
+     * Collects the token ranges a Parser reports into ClassEntry objects.
+     */
+    private static class RangeRecorder implements Parser.RangeListener {
+        /**
+         * the classes parsed so far
+         */
+        private List<ClassEntry> classes = new ArrayList<>();
+        /**
+         * the start and end of each member parsed since the last class
+         */
+        private List<int[]> members = new ArrayList<>();
+
+        @Override
+        public void classParsed(Class_ aClass, int start, int end) {
+            // drop the members of a class that was abandoned after a syntax error
+            int first = 0;
+            while (first < this.members.size() && this.members.get(first)[0] < start) {
+                first++;
+            }
+            ClassEntry entry = new ClassEntry();
+            entry.start = start;
+            entry.end = end;
+            entry.memberStarts = new int[this.members.size() - first];
+            entry.memberEnds = new int[this.members.size() - first];
+            for (int i = first; i < this.members.size(); i++) {
+                entry.memberStarts[i - first] = this.members.get(i)[0];
+                entry.memberEnds[i - first] = this.members.get(i)[1];
+            }
+            this.classes.add(entry);
+            this.members.clear();
+        }
+
+        @Override
+        public void memberParsed(Member member, int start, int end) {
+            this.members.add(new int[]{start, end});
+        }
+    }
+
+    /**
+     * the tokens of the current version of the file
+     */
+    private TokenBuffer tokens;
+    /**
+     * the AST of the current version of the file
+     */
+    private Program program;
+    /**
+     * the errors found in the current version of the file
+     */
+    private ErrorHandler errorHandler;
+    /**
+     * the token ranges of the classes, in the order of the ClassList
+     */
+    private List<ClassEntry> classes;
+    /**
+     * moves the nodes after an edit to their new lines
+     */
+    private LineShifter lineShifter = new LineShifter();
+    /**
+     * whether the last update reparsed only part of the file
+     */
+    private boolean lastUpdateIncremental;
+
+    /**
+     * Parses the given text in full and returns the root node of its AST.
+     *
+     * @param filename the name used for the text in the AST and in error messages
+     * @param text the Bantam Java source to be parsed
+     * @return the Program node forming the root of the AST
+     */
+    public Program parse(String filename, CharSequence text) {
+        return this.parseAll(new TokenBuffer(new Scanner(filename, text, new ErrorHandler())));
+    }
+
+    /**
+     * Applies an edit to the text and returns the root node of the AST of the edited text.
+     * If only part of the file had to be reparsed, this is the same Program node as before,
+     * updated in place; otherwise it is a new Program node.
+     *
+     * @param offset the index in the text where the edit starts
+     * @param removedLength the number of characters removed at offset
+     * @param insertedText the text inserted at offset in place of the removed characters
+     * @return the Program node forming the root of the AST of the edited text
+     */
+    public Program update(int offset, int removedLength, CharSequence insertedText) {
+        if (this.tokens == null) {
+            throw new IllegalStateException("parse() must be called before update()");
+        }
+        // the errors in the tokens are registered by the parser as it reaches them
+        IncrementalLexer lexer = new IncrementalLexer(new ErrorHandler());
+        TokenBuffer previous = this.tokens;
+        TokenBuffer tokens = lexer.relex(previous, offset, removedLength, insertedText);
+        this.lastUpdateIncremental = !this.errorHandler.errorsFound()
+                && this.reparsePart(previous, tokens, lexer);
+        if (this.lastUpdateIncremental) {
+            this.tokens = tokens;
+            return this.program;
+        }
+        return this.parseAll(tokens);
+    }
+
+    /**
+     * Gets the root node of the AST of the current version of the file.
+     *
+     * @return the Program node, or null if nothing has been parsed yet
+     */
+    public Program getProgram() { return this.program; }
+
+    /**
+     * Gets the tokens of the current version of the file.
+     *
+     * @return the TokenBuffer, or null if nothing has been parsed yet
+     */
+    public TokenBuffer getTokens() { return this.tokens; }
+
+    /**
+     * Gets the ErrorHandler holding the errors found in the current version of the file.
+     *
+     * @return the ErrorHandler, or null if nothing has been parsed yet
+     */
+    public ErrorHandler getErrorHandler() { return this.errorHandler; }
+
+    /**
+     * Tells whether the last call to update() reparsed only part of the file.
+     *
+     * @return true if the last update kept the rest of the AST, false if it reparsed the whole file
+     */
+    public boolean wasLastUpdateIncremental() { return this.lastUpdateIncremental; }
+
+    /**
+     * Helper method to parse all the given tokens and remember the ranges of the classes and members.
+     *
+     * @param tokens the tokens of the file
+     * @return the Program node forming the root of the AST
+     */
+    private Program parseAll(TokenBuffer tokens) {
+        RangeRecorder recorder = new RangeRecorder();
+        this.errorHandler = new ErrorHandler();
+        this.tokens = tokens;
+        this.program = new Parser(this.errorHandler).parse(tokens, recorder);
+        this.classes = recorder.classes;
+        return this.program;
+    }
+
+    /**
+     * Helper method to reparse the member or class holding all the tokens changed by an edit
+     * and to splice the new node into the AST.
+     *
+     * @param previous the tokens before the edit
+     * @param tokens the tokens after the edit
+     * @param lexer the IncrementalLexer that produced the new tokens
+     * @return true if the AST was updated, false if the whole file must be parsed again
+     */
+    private boolean reparsePart(TokenBuffer previous, TokenBuffer tokens, IncrementalLexer lexer) {
+        int firstChanged = lexer.getFirstChanged();
+        int oldChangedEnd = lexer.getOldChangedEnd();
+        if (oldChangedEnd >= previous.size()) {
+            // the edit reached the end of the file
+            return false;
+        }
+        int tokenDelta = lexer.getNewChangedEnd() - oldChangedEnd;
+        int lineDelta = tokens.getLineNum(lexer.getNewChangedEnd()) - previous.getLineNum(oldChangedEnd);
+
+        // the class and member must start before the first changed token, so that the parser
+        // reaches them the same way, and end after the last one
+        int classIndex = findLastStartBefore(this.classes, firstChanged);
+        if (classIndex < 0 || this.classes.get(classIndex).end < oldChangedEnd) {
+            return false;
+        }
+        ClassEntry entry = this.classes.get(classIndex);
+        ClassList classList = this.program.getClassList();
+        Class_ aClass = (Class_) classList.get(classIndex);
+
+        int memberIndex = findLastStartBefore(entry.memberStarts, firstChanged);
+        if (memberIndex >= 0 && entry.memberEnds[memberIndex] >= oldChangedEnd) {
+            Member member = new Parser(new ErrorHandler()).parseMember(tokens,
+                    entry.memberStarts[memberIndex], entry.memberEnds[memberIndex] + tokenDelta);
+            if (member != null) {
+                MemberList memberList = aClass.getMemberList();
+                memberList.set(memberIndex, member);
+                entry.memberEnds[memberIndex] += tokenDelta;
+                for (int i = memberIndex + 1; i < entry.memberStarts.length; i++) {
+                    entry.memberStarts[i] += tokenDelta;
+                    entry.memberEnds[i] += tokenDelta;
+                    if (lineDelta != 0) {
+                        this.lineShifter.shift(memberList.get(i), lineDelta);
+                    }
+                }
+                entry.end += tokenDelta;
+                this.shiftClasses(classIndex + 1, tokenDelta, lineDelta);
+                return true;
+            }
+        }
+
+        RangeRecorder recorder = new RangeRecorder();
+        Class_ newClass = new Parser(new ErrorHandler()).parseClass(tokens,
+                entry.start, entry.end + tokenDelta, recorder);
+        if (newClass == null) {
+            return false;
+        }
+        classList.set(classIndex, newClass);
+        this.classes.set(classIndex, recorder.classes.get(0));
+        this.shiftClasses(classIndex + 1, tokenDelta, lineDelta);
+        return true;
+    }
+
+    /**
+     * Helper method to move the classes from the given index on past an edit.
+     *
+     * @param from the index of the first class after the edit
+     * @param tokenDelta the number of tokens the edit added
+     * @param lineDelta the number of lines the edit added
+     */
+    private void shiftClasses(int from, int tokenDelta, int lineDelta) {
+        ClassList classList = this.program.getClassList();
+        for (int i = from; i < this.classes.size(); i++) {
+            ClassEntry entry = this.classes.get(i);
+            entry.start += tokenDelta;
+            entry.end += tokenDelta;
+            for (int j = 0; j < entry.memberStarts.length; j++) {
+                entry.memberStarts[j] += tokenDelta;
+                entry.memberEnds[j] += tokenDelta;
+            }
+            if (lineDelta != 0) {
+                this.lineShifter.shift(classList.get(i), lineDelta);
+            }
+        }
+    }
+
+    /**
+     * Helper method to find the last class starting before the given token.
+     *
+     * @param classes the classes, in order
+     * @param index the index of the token
+     * @return the index of the class, or -1 if no class starts before the token
+     */
+    private static int findLastStartBefore(List<ClassEntry> classes, int index) {
+        int low = 0;
+        int high = classes.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classes.get(mid).start < index) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Helper method to find the last member starting before the given token.
+     *
+     * @param starts the index of the first token of each member, in order
+     * @param index the index of the token
+     * @return the index of the member, or -1 if no member starts before the token
+     */
+    private static int findLastStartBefore(int[] starts, int index) {
+        int found = Arrays.binarySearch(starts, index);
+        // binarySearch gives -(insertion point) - 1 when the index is not a start
+        return (found >= 0) ? found - 1 : -found - 2;
+    }
+}
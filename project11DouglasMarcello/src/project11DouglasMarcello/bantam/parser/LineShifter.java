@@ -0,0 +1,323 @@
+/*
+ * File: LineShifter.java
+ * This file contains the LineShifter class, moving AST nodes up or down
+ * by a number of lines after an edit above them.
+ */
+
+package project11DouglasMarcello.bantam.parser;
+
+import project11DouglasMarcello.bantam.ast.*;
+import project11DouglasMarcello.bantam.visitor.TreeWalker;
+import project11DouglasMarcello.bantam.visitor.Visitor;
+
+/**
+ * The LineShifter class adds the same number to the line number of every node
+ * in a subtree. The IncrementalParser uses it on the nodes it keeps after an
+ * edit that added or removed lines, so that they do not have to be parsed again.
+ */
+class LineShifter extends Visitor {
+    /**
+     * the number of lines to add to each line number
+     */
+    private int lineDelta;
+    /**
+     * runs the shifts, so that deeply nested expressions do not overflow the stack
+     */
+    private TreeWalker walker = new TreeWalker();
+
+    /**
+     * Adds the given number to the line number of every node in the given subtree.
+     *
+     * @param node the root of the subtree
+     * @param lineDelta the number of lines to add, negative to move the nodes up
+     */
+    void shift(ASTNode node, int lineDelta) {
+        this.lineDelta = lineDelta;
+        this.walker.walk(node, this);
+    }
+
+    /**
+     * Helper method to shift a single node.
+     *
+     * @param node the node
+     */
+    private void shiftNode(ASTNode node) {
+        node.setLineNum(node.getLineNum() + this.lineDelta);
+    }
+
+    @Override
+    public Object visit(ClassList node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(Class_ node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(MemberList node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(Field node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(Method node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(FormalList node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(Formal node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(StmtList node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(DeclStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ExprStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(IfStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(WhileStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ForStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BreakStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BlockStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ReturnStmt node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ExprList node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(DispatchExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(NewExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(NewArrayExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(InstanceofExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(CastExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(AssignExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ArrayAssignExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompEqExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompNeExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompLtExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompLeqExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompGtExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryCompGeqExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryArithPlusExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryArithMinusExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryArithTimesExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryArithDivideExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryArithModulusExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryLogicAndExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(BinaryLogicOrExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(UnaryNegExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(UnaryNotExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(UnaryIncrExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(UnaryDecrExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(VarExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ArrayExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ConstIntExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ConstBooleanExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+
+    @Override
+    public Object visit(ConstStringExpr node) {
+        this.shiftNode(node);
+        return super.visit(node);
+    }
+}
@@ -11,7 +11,15 @@
  */
 package project11DouglasMarcello.bantam.parser;
 
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import project11DouglasMarcello.bantam.util.*;
 import project11DouglasMarcello.bantam.util.Error;
 import project11DouglasMarcello.bantam.lexer.*;
@@ -22,6 +30,10 @@ import static project11DouglasMarcello.bantam.lexer.Token.Kind.*;
 /**
  * This class constructs an AST from a legal Bantam Java program.
  * If the program is illegal, then one or more error messages are displayed.
+ * After a syntax error the parser recovers in panic mode: it skips tokens up to
+ * the next ; or } (for a statement or member) or the next class (for a class),
+ * and carries on, so that all the independent errors in a file are reported
+ * in one pass and the parts of the program that are well formed are kept.
  *
  * @author Liwei Jiang
  * @author Tracy Quan
@@ -30,9 +42,218 @@ import static project11DouglasMarcello.bantam.lexer.Token.Kind.*;
  */
 public class Parser {
     /**
-     * the scanner object that generates tokens of a specified file
+     * the precedence levels of the binary operators, from the lowest to the highest
      */
-    private Scanner scanner;
+    private static final int LOGIC_OR = 0, LOGIC_AND = 1, EQUALITY = 2, RELATIONAL = 3,
+            ADDITIVE = 4, MULTIPLICATIVE = 5;
+
+    /**
+     * Creates the AST node of a binary operator.
+     */
+    private interface BinaryExprFactory {
+        /**
+         * Creates the node for an operator applied to two operands.
+         *
+         * @param position the line number of the node
+         * @param left the left operand
+         * @param right the right operand
+         * @return the new node
+         */
+        Expr create(int position, Expr left, Expr right);
+    }
+
+    /**
+     * The table of binary operators, with their precedence levels and AST nodes.
+     */
+    private enum BinaryOperator {
+        OR("||", LOGIC_OR, true, BinaryLogicOrExpr::new),
+        AND("&&", LOGIC_AND, true, BinaryLogicAndExpr::new),
+        EQ("==", EQUALITY, false, BinaryCompEqExpr::new),
+        NE("!=", EQUALITY, false, BinaryCompNeExpr::new),
+        LT("<", RELATIONAL, false, BinaryCompLtExpr::new),
+        GT(">", RELATIONAL, false, BinaryCompGtExpr::new),
+        LEQ("<=", RELATIONAL, false, BinaryCompLeqExpr::new),
+        GEQ(">=", RELATIONAL, false, BinaryCompGeqExpr::new),
+        PLUS("+", ADDITIVE, true, BinaryArithPlusExpr::new),
+        MINUS("-", ADDITIVE, true, BinaryArithMinusExpr::new),
+        TIMES("*", MULTIPLICATIVE, true, BinaryArithTimesExpr::new),
+        DIVIDE("/", MULTIPLICATIVE, true, BinaryArithDivideExpr::new),
+        MODULUS("%", MULTIPLICATIVE, true, BinaryArithModulusExpr::new);
+
+        /**
+         * the operators indexed by spelling
+         */
+        private static final Map<String, BinaryOperator> bySpelling = new HashMap<>();
+        static {
+            for (BinaryOperator operator : values()) {
+                bySpelling.put(operator.spelling, operator);
+            }
+        }
+
+        /**
+         * the spelling of the operator
+         */
+        private final String spelling;
+        /**
+         * the precedence level of the operator
+         */
+        private final int precedence;
+        /**
+         * whether the operator can be chained, associating to the left
+         */
+        private final boolean chains;
+        /**
+         * creates the AST node of the operator
+         */
+        private final BinaryExprFactory factory;
+
+        BinaryOperator(String spelling, int precedence, boolean chains, BinaryExprFactory factory) {
+            this.spelling = spelling;
+            this.precedence = precedence;
+            this.chains = chains;
+            this.factory = factory;
+        }
+
+        /**
+         * Gets the binary operator a token stands for.
+         *
+         * @param token the token
+         * @return the BinaryOperator, or null if the token is not a binary operator
+         */
+        static BinaryOperator of(Token token) {
+            switch (token.kind) {
+                case BINARYLOGIC:
+                case PLUSMINUS:
+                case MULDIV:
+                case COMPARE:
+                    return bySpelling.get(token.getSpelling());
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Thrown after a syntax error has been registered, to unwind the parser
+     * to the nearest point where it can synchronize and carry on.
+     */
+    private static class RecoveryException extends RuntimeException {
+        /**
+         * the version of the serialized form
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates a RecoveryException without a message or a stack trace,
+         * since it is only used for unwinding.
+         */
+        RecoveryException() { super(null, null, false, false); }
+    }
+
+    /**
+     * Thrown when the parser of one class range reads past the end of its range,
+     * which means the range boundaries did not match the structure of the program.
+     */
+    private static class RangeOverrunException extends RuntimeException {
+        /**
+         * the version of the serialized form
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates a RangeOverrunException without a message or a stack trace,
+         * since it is only used for unwinding.
+         */
+        RangeOverrunException() { super(null, null, false, false); }
+    }
+
+    /**
+     * The classes and errors found by parsing one range of the tokens of a file.
+     */
+    private static class ClassRange {
+        /**
+         * the line number of the first token of the range
+         */
+        private int position;
+        /**
+         * the classes parsed in the range
+         */
+        private ClassList classList;
+        /**
+         * the errors found in the range
+         */
+        private ErrorHandler errorHandler;
+        /**
+         * whether the range was parsed without reading past its end
+         */
+        private boolean complete;
+    }
+
+    /**
+     * The AST and errors of one of the files given to parseAll().
+     */
+    private static class FileResult {
+        /**
+         * the AST of the file, or null if it could not be read
+         */
+        private Program program;
+        /**
+         * the errors found in the file
+         */
+        private ErrorHandler errorHandler;
+        /**
+         * the reason the file could not be read, or null if it was parsed
+         */
+        private CompilationException failure;
+    }
+
+    /**
+     * Receives the token range of each class and member the parser builds,
+     * so that an IncrementalParser can later reparse just one of them.
+     * A range runs from the first token of the node up to, but not including,
+     * the first token after it that is not a comment.
+     */
+    interface RangeListener {
+        /**
+         * Called after a class has been parsed.
+         *
+         * @param aClass the Class_ node
+         * @param start the index of the first token of the class
+         * @param end the index just past the last token of the class
+         */
+        void classParsed(Class_ aClass, int start, int end);
+
+        /**
+         * Called after a member has been parsed.
+         *
+         * @param member the Field or Method node
+         * @param start the index of the first token of the member
+         * @param end the index just past the last token of the member
+         */
+        void memberParsed(Member member, int start, int end);
+    }
+
+    /**
+     * the smallest number of tokens worth handing to a parser of its own
+     */
+    private static final int MIN_RANGE_TOKENS = 4096;
+
+    /**
+     * the tokens of the file to be parsed
+     */
+    private TokenBuffer tokens;
+    /**
+     * the index in the token buffer of the token after the current token
+     */
+    private int nextTokenIndex;
+    /**
+     * the index of the last token the parser may read, the end of its range
+     */
+    private int rangeEnd;
+    /**
+     * the number of parts of a file that are parsed at the same time
+     */
+    private int parallelism;
     /**
      * the name of file to be parsed
      */
@@ -45,13 +266,51 @@ public class Parser {
      * an error handler storing the Errors in a list
      */
     private ErrorHandler errorHandler;
+    /**
+     * whether an illegal token was skipped just before the current token
+     */
+    private boolean afterIllegalToken;
+    /**
+     * receives the token range of each class and member, or null
+     */
+    private RangeListener rangeListener;
+    /**
+     * whether parseAll() goes through the .btmc files of the AstFileCache
+     */
+    private boolean usingAstFiles;
+
+    /**
+     * The constructor of the Parser class, parsing each file on the calling thread.
+     *
+     * @param errorHandler the ErrorHandler object that stores a list of errors
+     */
+    public Parser(ErrorHandler errorHandler) { this(errorHandler, 1); }
 
     /**
-     * The constructor of the Parser class.
+     * A constructor of the Parser class that parses the classes of a large file in parallel.
+     * Each top-level class is parsed independently of the others, so the file is cut
+     * into ranges of whole classes that are parsed at the same time and then joined
+     * in order. The AST and the errors are the same as those of a sequential parse.
      *
      * @param errorHandler the ErrorHandler object that stores a list of errors
+     * @param parallelism the number of parts of a file to parse at the same time, 1 for none
+     */
+    public Parser(ErrorHandler errorHandler, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+        }
+        this.errorHandler = errorHandler;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether parseAll() loads the ASTs of unchanged files from the .btmc files
+     * next to them and saves the ASTs of the files it parses, through the AstFileCache.
+     * The ASTs loaded from .btmc files are read-only.
+     *
+     * @param usingAstFiles true to use the .btmc files, false to always parse
      */
-    public Parser(ErrorHandler errorHandler) { this.errorHandler = errorHandler; }
+    public void setUsingAstFiles(boolean usingAstFiles) { this.usingAstFiles = usingAstFiles; }
 
     /**
      * Parses the given file and returns the root node of the AST.
@@ -60,37 +319,444 @@ public class Parser {
      * @return The Program node forming the root of the AST generated by the parser
      */
     public Program parse(String filename) {
-        this.fileName = filename;
-        this.scanner = new Scanner(filename, this.errorHandler);
+        return this.parse(new TokenBuffer(new Scanner(filename, new ErrorHandler())));
+    }
+
+    /**
+     * Parses the given text, such as the contents of an editor, and returns the root node of the AST.
+     * Nothing is read from or written to disk.
+     *
+     * @param filename The name used for the text in the AST and in error messages
+     * @param text The Bantam Java source to be parsed
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(String filename, CharSequence text) {
+        return this.parse(new TokenBuffer(new Scanner(filename, text, new ErrorHandler())));
+    }
+
+    /**
+     * Parses everything the given Reader produces and returns the root node of the AST.
+     *
+     * @param filename The name used for the source in the AST and in error messages
+     * @param reader The Reader to take the Bantam Java source from; it is not closed
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(String filename, Reader reader) {
+        return this.parse(new TokenBuffer(new Scanner(filename, reader, new ErrorHandler())));
+    }
+
+    /**
+     * Parses the tokens in the given buffer and returns the root node of the AST.
+     * The lexical errors of the illegal tokens are registered as the parser reaches them,
+     * in order with the syntax errors, so the errors the buffer was scanned with should
+     * not be registered with this parser's ErrorHandler as well.
+     *
+     * @param tokens the tokens of the file, up to and including the EOF token
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    public Program parse(TokenBuffer tokens) {
+        this.fileName = tokens.getFilename();
+        if (this.parallelism > 1) {
+            List<Integer> starts = findRangeStarts(tokens, this.parallelism);
+            if (starts.size() > 1) {
+                Program program = this.parseRanges(tokens, starts);
+                if (program != null) {
+                    return program;
+                }
+            }
+        }
+        this.startRange(tokens, 0, tokens.size() - 1);
+        return parseProgram();
+    }
+
+    /**
+     * Parses all the given files and returns a single AST holding the classes of all of them,
+     * file by file in the order the files are given. With a parallelism above 1, that many
+     * files are parsed at the same time, each with its own parser. The errors of each file
+     * are registered with this parser's ErrorHandler in the order of the files, so they come
+     * out the same however the work was scheduled.
+     * A class whose name is already used by a class before it is registered as a semantic
+     * error, but both classes are kept in the AST.
+     *
+     * @param paths The paths of the Bantam Java files to be parsed
+     * @return The Program node forming the root of the AST of all the files
+     * @throws CompilationException if one of the files cannot be read, after all the files are parsed
+     */
+    public Program parseAll(Collection<Path> paths) {
+        List<FileResult> results = new ArrayList<>(paths.size());
+        if (this.parallelism == 1) {
+            for (Path path : paths) {
+                results.add(parseFile(path, this.usingAstFiles));
+            }
+        }
+        else {
+            ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+            try {
+                List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(paths.size());
+                for (Path path : paths) {
+                    tasks.add(pool.submit(() -> parseFile(path, this.usingAstFiles)));
+                }
+                // joining in submission order is what keeps the classes and errors in file order
+                for (ForkJoinTask<FileResult> task : tasks) {
+                    results.add(task.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int position = 0;
+        ClassList classList = null;
+        CompilationException failure = null;
+        Map<String, Class_> classesByName = new HashMap<>();
+        for (FileResult result : results) {
+            this.errorHandler.registerAll(result.errorHandler);
+            if (result.failure != null) {
+                failure = (failure == null) ? result.failure : failure;
+                continue;
+            }
+            if (classList == null) {
+                position = result.program.getLineNum();
+                classList = new ClassList(position);
+            }
+            for (ASTNode node : result.program.getClassList()) {
+                Class_ aClass = (Class_) node;
+                Class_ previous = classesByName.putIfAbsent(aClass.getName(), aClass);
+                if (previous != null) {
+                    this.errorHandler.register(Error.Kind.SEMANT_ERROR, aClass.getFilename(), aClass.getLineNum(),
+                            "Class " + aClass.getName() + " is already defined at "
+                                    + previous.getFilename() + ":" + previous.getLineNum() + ".");
+                }
+                classList.addElement(aClass);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (classList == null) {
+            classList = new ClassList(position);
+        }
+        classList.trimToSize();
+        return new Program(position, classList);
+    }
+
+    /**
+     * Helper method to parse one of the files given to parseAll() with a new parser and a new ErrorHandler.
+     *
+     * @param path the path of the file
+     * @param usingAstFiles whether to go through the AstFileCache
+     * @return the FileResult holding the AST and the errors of the file
+     */
+    private static FileResult parseFile(Path path, boolean usingAstFiles) {
+        FileResult result = new FileResult();
+        result.errorHandler = new ErrorHandler();
+        try {
+            result.program = usingAstFiles ? AstFileCache.parse(path, result.errorHandler)
+                    : new Parser(result.errorHandler).parse(path.toString());
+        } catch (CompilationException e) {
+            result.failure = e;
+        }
+        return result;
+    }
+
+    /**
+     * Helper method to cut the tokens of a file into ranges of whole top-level classes,
+     * about as many ranges as there are parts to parse at the same time, or a few more
+     * to even out the load. A class keyword outside all braces starts a top-level class.
+     *
+     * @param tokens the tokens of the file
+     * @param parallelism the number of parts to parse at the same time
+     * @return the index of the first token of each range, starting with 0
+     */
+    private static List<Integer> findRangeStarts(TokenBuffer tokens, int parallelism) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        int rangeTokens = Math.max(MIN_RANGE_TOKENS, tokens.size() / (4 * parallelism));
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            switch (tokens.getKind(i)) {
+                case LCURLY:
+                    depth++;
+                    break;
+                case RCURLY:
+                    if (depth > 0) {
+                        depth--;
+                    }
+                    break;
+                case CLASS:
+                    if (depth == 0 && i - starts.get(starts.size() - 1) >= rangeTokens) {
+                        starts.add(i);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Helper method to parse the ranges of a file at the same time and join the results.
+     * Every range is parsed by a parser of its own with an ErrorHandler of its own,
+     * and the classes and errors of the ranges are joined in the order of the ranges.
+     *
+     * @param tokens the tokens of the file
+     * @param starts the index of the first token of each range
+     * @return the Program node, or null if a range could not be parsed on its own
+     */
+    private Program parseRanges(TokenBuffer tokens, List<Integer> starts) {
+        List<ClassRange> ranges = new ArrayList<>(starts.size());
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            List<ForkJoinTask<ClassRange>> tasks = new ArrayList<>(starts.size());
+            for (int i = 0; i < starts.size(); i++) {
+                int from = starts.get(i);
+                // a range may read the class keyword starting the next range, but stops there
+                int to = (i + 1 < starts.size()) ? starts.get(i + 1) : tokens.size() - 1;
+                tasks.add(pool.submit(() -> parseRange(this.fileName, tokens, from, to)));
+            }
+            // joining in submission order is what keeps the classes and errors in file order
+            for (ForkJoinTask<ClassRange> task : tasks) {
+                ranges.add(task.join());
+            }
+        } catch (RuntimeException | StackOverflowError e) {
+            // let the sequential parse run into the same problem on the caller's thread
+            return null;
+        } finally {
+            pool.shutdown();
+        }
+        for (ClassRange range : ranges) {
+            if (!range.complete) {
+                return null;
+            }
+        }
+
+        int position = ranges.get(0).position;
+        ClassList classList = new ClassList(position);
+        for (ClassRange range : ranges) {
+            for (ASTNode aClass : range.classList) {
+                classList.addElement(aClass);
+            }
+            this.errorHandler.registerAll(range.errorHandler);
+        }
+        classList.trimToSize();
+        return new Program(position, classList);
+    }
+
+    /**
+     * Helper method to parse the classes in one range of the tokens of a file
+     * with a new parser and a new ErrorHandler.
+     *
+     * @param fileName the name of the file
+     * @param tokens the tokens of the file
+     * @param from the index of the first token of the range
+     * @param to the index of the token ending the range
+     * @return the ClassRange holding the classes and errors of the range
+     */
+    private static ClassRange parseRange(String fileName, TokenBuffer tokens, int from, int to) {
+        ClassRange range = new ClassRange();
+        range.errorHandler = new ErrorHandler();
+        Parser parser = new Parser(range.errorHandler);
+        parser.fileName = fileName;
+        try {
+            parser.startRange(tokens, from, to);
+            range.position = parser.currentToken.position;
+            range.classList = new ClassList(range.position);
+            parser.parseClasses(range.classList);
+            range.complete = true;
+        } catch (RangeOverrunException e) {
+            range.complete = false;
+        }
+        return range;
+    }
+
+    /**
+     * Helper method to start parsing the tokens of the given buffer from the given index.
+     *
+     * @param tokens the tokens of the file
+     * @param from the index of the first token to parse
+     * @param to the index of the last token the parser may read
+     */
+    private void startRange(TokenBuffer tokens, int from, int to) {
+        this.tokens = tokens;
+        this.nextTokenIndex = from;
+        this.rangeEnd = to;
         this.scan();
+    }
+
+    /**
+     * Helper method to get the index in the token buffer of the current token.
+     *
+     * @return the index of the current token
+     */
+    private int getTokenIndex() {
+        // the EOF token is returned without moving past it
+        return (this.currentToken.kind == EOF) ? this.nextTokenIndex : this.nextTokenIndex - 1;
+    }
+
+    /**
+     * Parses all the tokens in the given buffer on the calling thread,
+     * reporting the token range of every class and member to the given listener.
+     *
+     * @param tokens the tokens of the file, up to and including the EOF token
+     * @param listener the RangeListener to report the ranges to
+     * @return The Program node forming the root of the AST generated by the parser
+     */
+    Program parse(TokenBuffer tokens, RangeListener listener) {
+        this.fileName = tokens.getFilename();
+        this.rangeListener = listener;
+        this.startRange(tokens, 0, tokens.size() - 1);
         return parseProgram();
     }
 
     /**
-     * Gets the next Token from the scanner and assigns it to the currentToken field.
+     * Parses one class from the given range of tokens, reporting the ranges of the class
+     * and its members to the given listener. Succeeds only if the class is parsed without errors and
+     * ends exactly at the end of the range.
+     *
+     * @param tokens the tokens of the file
+     * @param start the index of the class keyword
+     * @param end the index just past the last token of the class
+     * @param listener the RangeListener to report the ranges of the members to
+     * @return the Class_ node, or null if the class could not be parsed cleanly in the range
+     */
+    Class_ parseClass(TokenBuffer tokens, int start, int end, RangeListener listener) {
+        this.fileName = tokens.getFilename();
+        this.rangeListener = listener;
+        try {
+            this.startRange(tokens, start, end);
+            Class_ aClass = this.parseClass();
+            if (this.getTokenIndex() != end || this.errorHandler.errorsFound()) {
+                return null;
+            }
+            listener.classParsed(aClass, start, end);
+            return aClass;
+        } catch (RecoveryException | RangeOverrunException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses one member from the given range of tokens. Succeeds only if the
+     * member is parsed without errors and ends exactly at the end of the range.
+     *
+     * @param tokens the tokens of the file
+     * @param start the index of the first token of the member
+     * @param end the index just past the last token of the member
+     * @return the Member node, or null if the member could not be parsed cleanly in the range
+     */
+    Member parseMember(TokenBuffer tokens, int start, int end) {
+        this.fileName = tokens.getFilename();
+        try {
+            this.startRange(tokens, start, end);
+            Member member = this.parseMember();
+            return (this.getTokenIndex() == end && !this.errorHandler.errorsFound()) ? member : null;
+        } catch (RecoveryException | RangeOverrunException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Helper method to read the next token from the token buffer.
+     * Registers the lexical error of an illegal token.
+     * Once the EOF token is reached it is returned again and again.
+     *
+     * @return the next Token
+     */
+    private Token nextToken() {
+        int index = this.nextTokenIndex;
+        if (index > this.rangeEnd) {
+            throw new RangeOverrunException();
+        }
+        Token token = this.tokens.getToken(index);
+        if (token.kind != EOF) {
+            this.nextTokenIndex++;
+            if (token.kind == ERROR) {
+                this.errorHandler.register(Error.Kind.LEX_ERROR, this.fileName, token.position,
+                        this.tokens.getErrorMessage(index));
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Gets the next Token from the token buffer and assigns it to the currentToken field.
      * Skips the COMMENT Tokens.
-     * Throws a compilation error when encountering illegal Tokens.
+     * Also skips illegal Tokens, whose errors are registered as they are read.
      */
     private void scan() {
-        this.currentToken = this.scanner.scan();
-        // skip the comments
-        while (this.currentToken.kind == COMMENT) {
-            this.currentToken = this.scanner.scan();
-        }
-        // throw a CompilationException if the current Token is an illegal Token
-        if (this.currentToken.kind == ERROR) {
-            throw new CompilationException("Illegal token " + this.currentToken.spelling + " was found.");
+        this.afterIllegalToken = false;
+        this.currentToken = this.nextToken();
+        // skip the comments and the illegal tokens
+        while (this.currentToken.kind == COMMENT || this.currentToken.kind == ERROR) {
+            this.afterIllegalToken |= (this.currentToken.kind == ERROR);
+            this.currentToken = this.nextToken();
         }
     }
 
     /**
-     * Helper method to register an error to the error handler.
+     * Helper method to register an error to the error handler
+     * and unwind to the nearest synchronization point.
+     * The error is not registered if it comes right after an illegal token,
+     * since it is most likely caused by that token, which is already reported.
      *
      * @param message the error message
      */
     private void registerError(String message) {
+        if (!this.afterIllegalToken) {
+            this.reportError(message);
+        }
+        throw new RecoveryException();
+    }
+
+    /**
+     * Helper method to register an error to the error handler without unwinding,
+     * for errors the parser can carry on from where it is.
+     *
+     * @param message the error message
+     */
+    private void reportError(String message) {
         this.errorHandler.register(Error.Kind.PARSE_ERROR, this.fileName, this.currentToken.position, message);
-        throw new CompilationException(message);
+    }
+
+    /**
+     * Helper method to skip the rest of a statement or member after a syntax error.
+     * Skips up to and including the next ; that is not inside braces or the } closing
+     * a block that started after the error, such as the body of a loop or a method.
+     * Stops before the } closing the enclosing block or class, a class keyword or the end of the file.
+     */
+    private void synchronize() {
+        int depth = 0;
+        while (this.currentToken.kind != EOF && this.currentToken.kind != CLASS) {
+            if (this.currentToken.kind == RCURLY) {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+                if (depth == 0) {
+                    this.scan();
+                    return;
+                }
+            }
+            else if (this.currentToken.kind == LCURLY) {
+                depth++;
+            }
+            else if (this.currentToken.kind == SEMICOLON && depth == 0) {
+                this.scan();
+                return;
+            }
+            this.scan();
+        }
+    }
+
+    /**
+     * Helper method to skip the rest of a class after a syntax error,
+     * up to but not including the next class keyword or the end of the file.
+     */
+    private void synchronizeClass() {
+        while (this.currentToken.kind != EOF && this.currentToken.kind != CLASS) {
+            this.scan();
+        }
     }
 
     /**
@@ -101,7 +767,7 @@ public class Parser {
      * @param errorMsg s String of error message to notify a mismatch happens
      */
     private void checkCurrentTokenMatched(String targetStr, String errorMsg) {
-        if (!this.currentToken.spelling.equals(targetStr)) {
+        if (!this.currentToken.getSpelling().equals(targetStr)) {
             this.registerError(errorMsg);
         }
     }
@@ -112,12 +778,30 @@ public class Parser {
     private Program parseProgram() {
         int position = currentToken.position;
         ClassList classList = new ClassList(position);
+        this.parseClasses(classList);
+        classList.trimToSize();
+        return new Program(position, classList);
+    }
 
-        while (currentToken.kind != EOF) {
-            Class_ aClass = this.parseClass();
-            classList.addElement(aClass);
+    /**
+     * Helper method to parse classes up to the end of the file or the end of the range being parsed.
+     *
+     * @param classList the ClassList to add the classes to
+     */
+    private void parseClasses(ClassList classList) {
+        // the current token is the one before nextTokenIndex, except at the end of the file
+        while (currentToken.kind != EOF && this.nextTokenIndex <= this.rangeEnd) {
+            try {
+                int start = this.getTokenIndex();
+                Class_ aClass = this.parseClass();
+                classList.addElement(aClass);
+                if (this.rangeListener != null) {
+                    this.rangeListener.classParsed(aClass, start, this.getTokenIndex());
+                }
+            } catch (RecoveryException e) {
+                this.synchronizeClass();
+            }
         }
-        return new Program(position, classList);
     }
 
     /*
@@ -143,17 +827,21 @@ public class Parser {
      */
     private MemberList parseMemberList() {
         MemberList memberList = new MemberList(this.currentToken.position);
-        if (!this.currentToken.spelling.equals("}")) {
-            while (!this.currentToken.spelling.equals("}")){
+        // a class keyword or the end of the file means the right curly brace "}" is missing
+        while (!this.currentToken.getSpelling().equals("}")
+                && this.currentToken.kind != EOF && this.currentToken.kind != CLASS) {
+            try {
+                int start = this.getTokenIndex();
                 Member aMember = this.parseMember();
                 memberList.addElement(aMember);
-                // if missing the right curly brace "}"
-                if (this.currentToken.getKind().equals(EOF)) {
-                    this.registerError("Class definition missing the right curly brace }.");
-                    break;
+                if (this.rangeListener != null) {
+                    this.rangeListener.memberParsed(aMember, start, this.getTokenIndex());
                 }
+            } catch (RecoveryException e) {
+                this.synchronize();
             }
         }
+        memberList.trimToSize();
         return memberList;
     }
 
@@ -182,9 +870,13 @@ public class Parser {
        MemberList memberList = this.parseMemberList();
 
         // "}"
-        this.checkCurrentTokenMatched("}", "Class definition missing the right curly brace }.");
-
-        this.scan();
+        // keep the class even without it, since its members have been parsed
+        if (this.currentToken.getSpelling().equals("}")) {
+            this.scan();
+        }
+        else {
+            this.reportError("Class definition missing the right curly brace }.");
+        }
         return new Class_(position, this.fileName, name, parentName, memberList);
     }
 
@@ -204,6 +896,7 @@ public class Parser {
         Stmt stmt = this.parseBlock();
         StmtList stmtList = new StmtList(this.currentToken.position);
         stmtList.addElement(stmt);
+        stmtList.trimToSize();
         return new Method(position, type, identifier, parameter, stmtList);
     }
 
@@ -214,7 +907,7 @@ public class Parser {
     private Field parseField(String type, String identifier) {
         // if the field is initialized
         // "="
-        if (this.currentToken.spelling.equals("=")){
+        if (this.currentToken.getSpelling().equals("=")){
             // <InitialValue>
             this.scan();
             Expr init = this.parseExpression();
@@ -228,7 +921,7 @@ public class Parser {
         }
         // if the field is declared but not initialized
         // EMPTY
-        else if (this.currentToken.spelling.equals(";")){
+        else if (this.currentToken.getSpelling().equals(";")){
             int position = this.currentToken.position;
             this.scan();
             return new Field(position, type, identifier, null);
@@ -255,7 +948,7 @@ public class Parser {
         String identifier = this.parseIdentifier("Illegal member name.");
 
         // if <Method>
-        if (this.currentToken.spelling.equals("(")){
+        if (this.currentToken.getSpelling().equals("(")){
             return this.parseMethod(position, type, identifier);
         }
         // if <Field>
@@ -336,7 +1029,7 @@ public class Parser {
         this.scan();
 
         // RETURN ;
-        if (this.currentToken.spelling.equals(";")) {
+        if (this.currentToken.getSpelling().equals(";")) {
             stmt = new ReturnStmt(position, null);
         }
         // RETURN <Expression> ;
@@ -423,7 +1116,7 @@ public class Parser {
         // <Start> or ";"
         this.scan();
         Expr initExpr;
-        if (this.currentToken.spelling.equals(";")){
+        if (this.currentToken.getSpelling().equals(";")){
             initExpr = null;
         } else {
             initExpr = this.parseExpression();
@@ -432,7 +1125,7 @@ public class Parser {
         // <Terminate> or ";"
         this.scan();
         Expr predExpr;
-        if (this.currentToken.spelling.equals(";")){
+        if (this.currentToken.getSpelling().equals(";")){
             predExpr = null;
         } else{
             predExpr = this.parseExpression();
@@ -441,7 +1134,7 @@ public class Parser {
         // <Increment> or ")"
         this.scan();
         Expr updateExpr;
-        if (this.currentToken.spelling.equals(")")){
+        if (this.currentToken.getSpelling().equals(")")){
             updateExpr = null;
         } else {
             updateExpr = this.parseExpression();
@@ -468,15 +1161,22 @@ public class Parser {
         //<Body>
         this.scan();
         StmtList stmtList = new StmtList(position);
-        while (!this.currentToken.spelling.equals("}")){
-            Stmt stmt = this.parseStatement();
-            stmtList.addElement(stmt);
-            if (this.currentToken.getKind().equals(EOF)) {
-                this.registerError("Block missing the right curly brace }.");
-                break;
+        while (!this.currentToken.getSpelling().equals("}")){
+            // a class keyword or the end of the file means the right curly brace "}" is missing
+            if (this.currentToken.kind == EOF || this.currentToken.kind == CLASS) {
+                this.reportError("Block missing the right curly brace }.");
+                stmtList.trimToSize();
+                return new BlockStmt(position, stmtList);
+            }
+            try {
+                Stmt stmt = this.parseStatement();
+                stmtList.addElement(stmt);
+            } catch (RecoveryException e) {
+                this.synchronize();
             }
         }
         this.scan();
+        stmtList.trimToSize();
         return  new BlockStmt(position, stmtList);
     }
 
@@ -515,220 +1215,71 @@ public class Parser {
     // Here we introduce the precedence to operations
 
     /*
-     * <Expression> ::= <LogicalOrExpr> <OptionalAssignment>
+     * <Expression> ::= <BinaryExpr> <OptionalAssignment>
      * <OptionalAssignment> ::= EMPTY | = <Expression>
      */
     private Expr parseExpression() {
         int position = this.currentToken.position;
-        String name = this.currentToken.spelling;
+        String name = this.currentToken.getSpelling();
 
-        // <LogicalOrExpr>
-        Expr left = this.parseOrExpr();
+        // <BinaryExpr>
+        Expr left = this.parseBinaryExpr(LOGIC_OR);
 
         // <OptionalAssignment>
         // "="
-        while (this.currentToken.spelling.equals("=")){
+        while (this.currentToken.getSpelling().equals("=")){
             this.scan();
-            // <LogicalOrExpr>
-            Expr right = this.parseOrExpr();
+            // <BinaryExpr>
+            Expr right = this.parseBinaryExpr(LOGIC_OR);
             left = new AssignExpr(position, null, name, right);
         }
         return left;
     }
 
     /*
-     * <LogicalOR> ::= <logicalAND> <LogicalORRest>
-     * <LogicalORRest> ::= EMPTY |  || <LogicalAND> <LogicalORRest>
-     */
-    private Expr parseOrExpr() {
-        int position = currentToken.position;
-
-        // <logicalAND>
-        Expr left = this.parseAndExpr();
-
-        // "||"
-        while (this.currentToken.spelling.equals("||")) {
-            this.scan();
-            // <logicalAND>
-            Expr right = this.parseAndExpr();
-            // <LogicalORRest>
-            left = new BinaryLogicOrExpr(position, left, right);
-        }
-        return left;
-    }
-
-    /*
-     * <LogicalAND> ::= <ComparisonExpr> <LogicalANDRest>
-     * <LogicalANDRest> ::= EMPTY |  && <ComparisonExpr> <LogicalANDRest>
-     */
-    private Expr parseAndExpr() {
-        int position = this.currentToken.position;
-
-        // <ComparisonExpr>
-        Expr left = this.parseEqualityExpr();
-
-        // "&&"
-        while (this.currentToken.spelling.equals("&&")) {
-            this.scan();
-            // <ComparisonExpr>
-            Expr right = this.parseEqualityExpr();
-            // <LogicalANDRest>
-            left = new BinaryLogicAndExpr(position, left, right);
-        }
-        return left;
-    }
-
-    /*
-     * <ComparisonExpr> ::= <RelationalExpr> <equalOrNotEqual> <RelationalExpr> |
-     *                     <RelationalExpr>
-     * <equalOrNotEqual> ::=  == | !=
-     */
-    private Expr parseEqualityExpr() {
-        int position = this.currentToken.position;
-
-        // <RelationalExpr>
-        Expr left = this.parseRelationalExpr();
-        Expr right;
-
-        // <equalOrNotEqual>
-        // "=="
-        if (this.currentToken.spelling.equals("==")){
-            this.scan();
-            // <RelationalExpr>
-            right = this.parseRelationalExpr();
-            left = new BinaryCompEqExpr(position, left, right);
-        }
-        // "!="
-        else if (this.currentToken.spelling.equals("!=")){
-            this.scan();
-            // <RelationalExpr>
-            right = this.parseRelationalExpr();
-            left = new BinaryCompNeExpr(position, left, right);
-        }
-
-        return left;
-    }
-
-    /*
-     * <RelationalExpr> ::=<AddExpr> | <AddExpr> <ComparisonOp> <AddExpr>
-     * <ComparisonOp> ::=  < | > | <= | >= | INSTANCEOF
-     */
-    private Expr parseRelationalExpr() {
-        int position = this.currentToken.position;
-
-        // <AddExpr>
-        Expr left = this.parseAddExpr();
-        Expr right;
-
-        // <ComparisonOp>
-        // "<"
-        if (this.currentToken.spelling.equals("<")){
-            this.scan();
-            // <AddExpr>
-            right = this.parseAddExpr();
-            left = new BinaryCompLtExpr(position, left, right);
-        }
-        // ">"
-        else if (this.currentToken.spelling.equals(">")){
-            this.scan();
-            // <AddExpr>
-            right = this.parseAddExpr();
-            left = new BinaryCompGtExpr(position, left, right);
-        }
-        // "<="
-        else if (this.currentToken.spelling.equals("<=")){
-            this.scan();
-            // <AddExpr>
-            right = this.parseAddExpr();
-            left = new BinaryCompLeqExpr(position, left, right);
-        }
-        // ">="
-        else if (this.currentToken.spelling.equals(">=")){
-            this.scan();
-            // <AddExpr>
-            right = this.parseAddExpr();
-            left = new BinaryCompGeqExpr(position, left, right);
-        }
-        // INSTANCEOF
-        else if (this.currentToken.kind == INSTANCEOF){
-            this.scan();
-            // <AddExpr>
-            String type = this.parseType();
-            left = new InstanceofExpr(position, left, type);
-        }
-
-        return left;
-    }
-
-
-    /*
-     * <MultiExpr> ::= <NewCastOrUnary> <MoreNCU>
-     * <MoreNCU> ::= * <NewCastOrUnary> <MoreNCU> |
-     *               / <NewCastOrUnary> <MoreNCU> |
-     *               % <NewCastOrUnary> <MoreNCU> |
-     *               EMPTY
+     * <BinaryExpr> ::= <NewCastOrUnary> | <BinaryExpr> <BinaryOp> <BinaryExpr>
+     *                | <BinaryExpr> INSTANCEOF <Type>
+     *
+     * Parsed by precedence climbing over the operator table, instead of one method per level.
+     * The precedence levels, from the lowest, are the rules this replaces:
+     * <LogicalOR>      ::= <LogicalAND> | <LogicalOR> || <LogicalAND>
+     * <LogicalAND>     ::= <ComparisonExpr> | <LogicalAND> && <ComparisonExpr>
+     * <ComparisonExpr> ::= <RelationalExpr> | <RelationalExpr> <equalOrNotEqual> <RelationalExpr>
+     * <RelationalExpr> ::= <AddExpr> | <AddExpr> <ComparisonOp> <AddExpr> | <AddExpr> INSTANCEOF <Type>
+     * <AddExpr>        ::= <MultExpr> | <AddExpr> + <MultExpr> | <AddExpr> - <MultExpr>
+     * <MultExpr>       ::= <NewCastOrUnary> | <MultExpr> * <NewCastOrUnary>
+     *                    | <MultExpr> / <NewCastOrUnary> | <MultExpr> % <NewCastOrUnary>
+     * Comparisons do not chain, so after one of them only an operator of a lower level can follow,
+     * and after any operator, no operator of a higher level can follow.
+     * Every node gets the position of the first token of its left operand.
      */
-    private Expr parseMultExpr() {
+    private Expr parseBinaryExpr(int minPrecedence) {
         int position = this.currentToken.position;
-
-        // <NewCastOrUnary>
         Expr left = this.parseNewCastOrUnary();
-        Expr right;
-
-        while (this.currentToken.spelling.equals("*") ||
-                this.currentToken.spelling.equals("/") ||
-                this.currentToken.spelling.equals("%")) {
-
-            if (this.currentToken.spelling.equals("*")) {
-                this.scan();
-                // <NewCastOrUnary>
-                right = this.parseNewCastOrUnary();
-                left = new BinaryArithTimesExpr(position, left, right);
-            }
-            else if (this.currentToken.spelling.equals("/")){
-                this.scan();
-                // <NewCastOrUnary>
-                right = this.parseNewCastOrUnary();
-                left = new BinaryArithDivideExpr(position, left, right);
-            }
-            else if (this.currentToken.spelling.equals("%")){
-                this.scan();
-                // <NewCastOrUnary>
-                right = this.parseNewCastOrUnary();
-                left = new BinaryArithModulusExpr(position, left, right);
-            }
-        }
-        return left;
-    }
-
-    /*
-     * <AddExpr>::＝ <MultExpr> <MoreMultExpr>
-     * <MoreMultExpr> ::= EMPTY | + <MultExpr> <MoreMultExpr> | - <MultExpr> <MoreMultExpr>
-     */
-    private Expr parseAddExpr() {
-        int position = this.currentToken.position;
-
-        // <MultExpr>
-        Expr left = this.parseMultExpr();
-        Expr right;
-
-        // <MoreMultExpr>
-        while (this.currentToken.spelling.equals("+") || this.currentToken.spelling.equals("-") ) {
+        int maxPrecedence = MULTIPLICATIVE;
 
-            // + <MultExpr> <MoreMultExpr>
-            if (this.currentToken.spelling.equals("+")) {
+        while (true) {
+            // INSTANCEOF <Type>
+            if (this.currentToken.kind == INSTANCEOF) {
+                if (RELATIONAL < minPrecedence || RELATIONAL > maxPrecedence) {
+                    break;
+                }
                 this.scan();
-                // <MultExpr>
-                right = parseMultExpr();
-                left = new BinaryArithPlusExpr(position, left, right);
+                String type = this.parseType();
+                left = new InstanceofExpr(position, left, type);
+                maxPrecedence = RELATIONAL - 1;
+                continue;
             }
-            // - <MultExpr> <MoreMultExpr>
-            else if (this.currentToken.spelling.equals("-")){
-                this.scan();
-                // <MultExpr>
-                right = parseMultExpr();
-                left = new BinaryArithMinusExpr(position, left, right);
+            // <BinaryOp> <BinaryExpr>
+            BinaryOperator operator = BinaryOperator.of(this.currentToken);
+            if (operator == null || operator.precedence < minPrecedence || operator.precedence > maxPrecedence) {
+                break;
             }
+            this.scan();
+            Expr right = this.parseBinaryExpr(operator.precedence + 1);
+            left = operator.factory.create(position, left, right);
+            // a higher operator left over by the right operand is one that refused to chain
+            maxPrecedence = operator.chains ? operator.precedence : operator.precedence - 1;
         }
         return left;
     }
@@ -765,7 +1316,7 @@ public class Parser {
         String type = this.parseIdentifier("Illegal new object/array name.");
 
         // if creating a new array [<Expression>]
-        if (this.currentToken.spelling.equals("[")){
+        if (this.currentToken.getSpelling().equals("[")){
             this.scan();
             // <Expression>
             Expr exp = this.parseExpression();
@@ -776,7 +1327,7 @@ public class Parser {
             return new NewArrayExpr(position, type, exp);
         }
         // if creating a new object ()
-        else if (this.currentToken.spelling.equals("(")) {
+        else if (this.currentToken.getSpelling().equals("(")) {
             // )
             this.scan();
             this.checkCurrentTokenMatched(")", "New statement for an object missing a right parenthesis ).");
@@ -827,8 +1378,8 @@ public class Parser {
      *         false if the current token is not one of the PrefixOp
      */
     private boolean isPrefixOp() {
-        return this.currentToken.spelling.equals("-") || this.currentToken.spelling.equals("!")
-                || this.currentToken.spelling.equals("++") || this.currentToken.spelling.equals("--");
+        return this.currentToken.getSpelling().equals("-") || this.currentToken.getSpelling().equals("!")
+                || this.currentToken.getSpelling().equals("++") || this.currentToken.getSpelling().equals("--");
     }
 
     /*
@@ -841,16 +1392,16 @@ public class Parser {
         // if this.currentToken is <PrefixOp>
         if (this.isPrefixOp()) {
             while (this.isPrefixOp()) {
-                if (this.currentToken.spelling.equals("-")) {
+                if (this.currentToken.getSpelling().equals("-")) {
                     this.scan();
                     expr = new UnaryNegExpr(this.currentToken.position, this.parseUnaryPrefix());
-                } else if (this.currentToken.spelling.equals("!")) {
+                } else if (this.currentToken.getSpelling().equals("!")) {
                     this.scan();
                     expr = new UnaryNotExpr(this.currentToken.position, this.parseUnaryPrefix());
-                } else if (this.currentToken.spelling.equals("++")) {
+                } else if (this.currentToken.getSpelling().equals("++")) {
                     this.scan();
                     expr = new UnaryIncrExpr(this.currentToken.position, this.parseUnaryPrefix(), false);
-                } else if (this.currentToken.spelling.equals("--")) {
+                } else if (this.currentToken.getSpelling().equals("--")) {
                     this.scan();
                     expr = new UnaryDecrExpr(this.currentToken.position, this.parseUnaryPrefix(), false);
                 }
@@ -874,11 +1425,11 @@ public class Parser {
         Expr expr = this.parsePrimary();
 
         // <PostfixOp>
-        if (this.currentToken.spelling.equals("++")){
+        if (this.currentToken.getSpelling().equals("++")){
             this.scan();
             return new UnaryIncrExpr(position, expr, true);
         }
-        else if (this.currentToken.spelling.equals("--")){
+        else if (this.currentToken.getSpelling().equals("--")){
             this.scan();
             return new UnaryDecrExpr(position, expr, true);
         }
@@ -927,7 +1478,7 @@ public class Parser {
         }
         else if(currentToken.kind == Token.Kind.IDENTIFIER){
             //String methodName = parseVarOrDispatchIdentifier();
-            id = parseIdentifier("Non-identifier " + this.currentToken.spelling + " was found where identifier expected."); // parse name (variable or method)
+            id = parseIdentifier("Non-identifier " + this.currentToken.getSpelling() + " was found where identifier expected."); // parse name (variable or method)
         }
 
         while( currentToken.kind == Token.Kind.LPAREN || currentToken.kind == Token.Kind.DOT || currentToken.kind == Token.Kind.LBRACKET) {
@@ -943,7 +1494,7 @@ public class Parser {
             }
             else if(currentToken.kind == Token.Kind.DOT){
                 //String methodName = parseVarOrDispatchIdentifier();
-                id = parseIdentifier("Non-identifier " + this.currentToken.spelling + " was found where identifier expected."); // parse name (variable or method)
+                id = parseIdentifier("Non-identifier " + this.currentToken.getSpelling() + " was found where identifier expected."); // parse name (variable or method)
                 ExprList args = parseArguments();
                 expr = new DispatchExpr(position, expr, id, args);
             }
@@ -977,7 +1528,7 @@ public class Parser {
         ExprList paraList;
 
         if ( currentToken.kind == Token.Kind.LPAREN){
-            currentToken = scanner.scan();
+            currentToken = this.nextToken();
             expr = parseExpression();
             if (currentToken.kind != Token.Kind.RPAREN) {
                 this.registerError("Unclosed parenthesis");
@@ -996,20 +1547,20 @@ public class Parser {
             expr = this.parseBoolean();
         }
         else {
-            if (currentToken.spelling.equals("this") || currentToken.spelling.equals("super")) {
-                expr = new VarExpr(position, null, currentToken.spelling);
+            if (currentToken.getSpelling().equals("this") || currentToken.getSpelling().equals("super")) {
+                expr = new VarExpr(position, null, currentToken.getSpelling());
                 this.scan();
-                if (!this.currentToken.spelling.equals(".")) {
+                if (!this.currentToken.getSpelling().equals(".")) {
                     return expr;
                 }
                 this.scan();
                 ref = expr;
             }
 
-            String name = this.parseIdentifier("Non-identifier " + this.currentToken.spelling + " was found where identifier expected."); // parse name (variable or method)
+            String name = this.parseIdentifier("Non-identifier " + this.currentToken.getSpelling() + " was found where identifier expected."); // parse name (variable or method)
 
-            if (!currentToken.spelling.equals("(")) {
-                if (!currentToken.spelling.equals("[")) {//not array member. like this.a
+            if (!currentToken.getSpelling().equals("(")) {
+                if (!currentToken.getSpelling().equals("[")) {//not array member. like this.a
                     expr = new VarExpr(position, ref, name);
                 }
 
@@ -1025,12 +1576,12 @@ public class Parser {
                 paraList = this.parseArguments();
                 expr = new DispatchExpr(position, ref, name, paraList);
             }
-            if(this.currentToken.spelling.equals(".")){
+            if(this.currentToken.getSpelling().equals(".")){
                 this.scan();
 
-                if(this.currentToken.spelling.equals("length")){
+                if(this.currentToken.getSpelling().equals("length")){
                     expr = new VarExpr(position, ref, "length" );
-                    if (this.currentToken.spelling.equals(".")||this.currentToken.spelling.equals("(")) {
+                    if (this.currentToken.getSpelling().equals(".")||this.currentToken.getSpelling().equals("(")) {
                         this.registerError("Cannot call method on length");
                     }
                     this.scan();
@@ -1038,7 +1589,7 @@ public class Parser {
                 }
                 expr = parseMethodCall(ref, position);
             }
-            while(this.currentToken.spelling.equals(".")){
+            while(this.currentToken.getSpelling().equals(".")){
                 this.scan();
                 expr = parseMethodCall(expr, position);
             }
@@ -1054,7 +1605,7 @@ public class Parser {
      * @return the expression node
      */
     private DispatchExpr parseMethodCall(Expr ref, int position) {
-        String name = parseIdentifier("Non-identifier " + this.currentToken.spelling + " was found where identifier expected.");
+        String name = parseIdentifier("Non-identifier " + this.currentToken.getSpelling() + " was found where identifier expected.");
         this.checkCurrentTokenMatched("(", "Non-primary found where primary expected.");
         this.scan();
         ExprList paraList = this.parseArguments();
@@ -1071,7 +1622,7 @@ public class Parser {
         ExprList args = new ExprList(position);
 
         // checks for the empty arguments case
-        if ( this.currentToken.spelling.equals(")") ) {
+        if ( this.currentToken.getSpelling().equals(")") ) {
             this.scan();
             return args;
         }
@@ -1081,13 +1632,14 @@ public class Parser {
         args.addElement(arg);
 
         //continue parsing arguments
-        while (this.currentToken.spelling.equals(",")) {
+        while (this.currentToken.getSpelling().equals(",")) {
             this.scan();
             arg = this.parseExpression();
             args.addElement(arg);
         }
 
         this.scan();
+        args.trimToSize();
         return args;
     }
 
@@ -1100,7 +1652,7 @@ public class Parser {
         FormalList params = new FormalList(position);
 
         // checks for the empty parameters case
-        if ( this.currentToken.spelling.equals(")") ) {
+        if ( this.currentToken.getSpelling().equals(")") ) {
             return params;
         }
 
@@ -1110,11 +1662,12 @@ public class Parser {
         params.addElement(param);
 
         // continue parsing parameters and adding them to the list
-        while (this.currentToken.spelling.equals(",")) {
+        while (this.currentToken.getSpelling().equals(",")) {
             this.scan();
             param = this.parseFormal();
             params.addElement(param);
         }
+        params.trimToSize();
         return params;
     }
 
@@ -1134,9 +1687,9 @@ public class Parser {
         // <Identifier>
         String type = this.parseIdentifier("Illegal type name.");
         // <Brackets>
-        if (this.currentToken.getSpelling() == "[") {
+        if (this.currentToken.getSpelling().equals("[")) {
             this.scan();
-            if(this.currentToken.getSpelling() == "]") {
+            if(this.currentToken.getSpelling().equals("]")) {
                 this.scan();
                 return (type + "[]");
             } else {
@@ -1159,7 +1712,7 @@ public class Parser {
         }
         Token tmpToken = this.currentToken;
         this.scan();
-        return tmpToken.spelling;
+        return tmpToken.getSpelling();
     }
 
     /**
@@ -1170,7 +1723,7 @@ public class Parser {
     private ConstStringExpr parseStringConst() {
         Token tmpToken = this.currentToken;
         this.scan();
-        return new ConstStringExpr(tmpToken.position, tmpToken.spelling);
+        return new ConstStringExpr(tmpToken.position, tmpToken.getSpelling());
     }
 
     /**
@@ -1181,7 +1734,7 @@ public class Parser {
     private ConstIntExpr parseIntConst() {
         Token tmpToken = this.currentToken;
         this.scan();
-        return new ConstIntExpr(tmpToken.position, tmpToken.spelling);
+        return new ConstIntExpr(tmpToken.position, tmpToken.getSpelling());
     }
 
     /**
@@ -1192,7 +1745,7 @@ public class Parser {
     private ConstBooleanExpr parseBoolean() {
         Token tmpToken = this.currentToken;
         this.scan();
-        return new ConstBooleanExpr(tmpToken.position, tmpToken.spelling);
+        return new ConstBooleanExpr(tmpToken.position, tmpToken.getSpelling());
     }
 
     /**
@@ -1210,23 +1763,36 @@ public class Parser {
 
             try{
                 Program program = parser.parse(filename);
-                Drawer drawer = new Drawer();
-                drawer.draw(filename, program);
-                System.out.println("Parsing was successful!");
-            } catch (CompilationException e) {
-                List<Error> errorList = handler.getErrorList();
-                for (Error err : errorList) {
-                    System.out.println(err.toString());
+                if (handler.errorsFound()) {
+                    printErrors(handler.getErrorList());
                 }
-                if (errorList.size() == 1) {
-                    System.out.println("\n1 error was found.");
-                } else {
-                    System.out.println("\n" + errorList.size() + " errors were found.");
+                else {
+                    Drawer drawer = new Drawer();
+                    drawer.draw(filename, program);
+                    System.out.println("Parsing was successful!");
                 }
+            } catch (CompilationException e) {
+                printErrors(handler.getErrorList());
             } catch (Exception e) {
                 System.out.println(e);
                 System.out.println("ERROR: Parsing " + filename + " failed!");
             }
         }
     }
+
+    /**
+     * Helper method for main to print the errors found in a file, followed by a summary line.
+     *
+     * @param errorList the errors found in the file
+     */
+    private static void printErrors(List<Error> errorList) {
+        for (Error err : errorList) {
+            System.out.println(err.toString());
+        }
+        if (errorList.size() == 1) {
+            System.out.println("\n1 error was found.");
+        } else {
+            System.out.println("\n" + errorList.size() + " errors were found.");
+        }
+    }
 }
\ No newline at end of file
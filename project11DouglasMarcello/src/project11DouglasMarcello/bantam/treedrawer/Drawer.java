@@ -40,7 +40,7 @@ public class Drawer
         FontMetrics fontMetrics = frame.getFontMetrics(font);
 
         project11DouglasMarcello.bantam.treedrawer.LayoutVisitor layout = new LayoutVisitor(fontMetrics);
-        project11DouglasMarcello.bantam.treedrawer.DrawingTree theDrawing = (DrawingTree) AST.accept(layout);
+        project11DouglasMarcello.bantam.treedrawer.DrawingTree theDrawing = layout.layout(AST);
         theDrawing.position(new Point(2048, 10));
         panel.setDrawing(theDrawing);
 
@@ -15,6 +15,7 @@
 package project11DouglasMarcello.bantam.treedrawer;
 
 import java.awt.*;
+import java.util.ArrayDeque;
 
 public class DrawingTree
 {
@@ -49,25 +50,40 @@ public class DrawingTree
     //private final int FIXED_FONT_ASCENT = 3; -- never used
     private final Color nodeColor = new Color(250, 220, 100);
 
+    // painted and positioned from a stack rather than by recursion,
+    // so that the drawing of a deeply nested AST does not overflow the stack
     public void paint(Graphics graphics)
     {
-        graphics.setColor(nodeColor);
-        graphics.fillRect(pos.x, pos.y, width, height);
-        graphics.setColor(Color.black);
-        graphics.drawRect(pos.x, pos.y, width - 1, height - 1);
-        graphics.drawString(caption, pos.x + 2,
-                pos.y + (height + FIXED_FONT_HEIGHT) / 2);
-
-        if (children != null) {
-            for (int i = 0; i < children.length; i++) {
-                children[i].paint(graphics);
+        ArrayDeque<DrawingTree> trees = new ArrayDeque<>();
+        ArrayDeque<Boolean> painted = new ArrayDeque<>();
+        trees.push(this);
+        painted.push(false);
+        while (!trees.isEmpty()) {
+            DrawingTree tree = trees.pop();
+            if (painted.pop()) {
+                // the line to the parent is drawn after the children
+                graphics.drawLine(tree.pos.x + tree.width / 2, tree.pos.y,
+                        tree.parent.pos.x + tree.parent.width / 2,
+                        tree.parent.pos.y + tree.parent.height);
+                continue;
             }
-        }
+            graphics.setColor(nodeColor);
+            graphics.fillRect(tree.pos.x, tree.pos.y, tree.width, tree.height);
+            graphics.setColor(Color.black);
+            graphics.drawRect(tree.pos.x, tree.pos.y, tree.width - 1, tree.height - 1);
+            graphics.drawString(tree.caption, tree.pos.x + 2,
+                    tree.pos.y + (tree.height + FIXED_FONT_HEIGHT) / 2);
 
-        if (parent != null) {
-            graphics.drawLine(pos.x + width / 2, pos.y,
-                    parent.pos.x + parent.width / 2,
-                    parent.pos.y + parent.height);
+            if (tree.parent != null) {
+                trees.push(tree);
+                painted.push(true);
+            }
+            if (tree.children != null) {
+                for (int i = tree.children.length - 1; i >= 0; i--) {
+                    trees.push(tree.children[i]);
+                    painted.push(false);
+                }
+            }
         }
     }
 
@@ -77,13 +93,20 @@ public class DrawingTree
         this.pos.x = pos.x + this.offset.x;
         this.pos.y = pos.y + this.offset.y;
 
-        Point temp = new Point(this.pos.x, this.pos.y);
-
-        if (children != null) {
-            for (int i = 0; i < children.length; i++) {
-                children[i].position(temp);
-                temp.x += children[i].offset.x;
-                temp.y = this.pos.y + children[0].offset.y;
+        ArrayDeque<DrawingTree> trees = new ArrayDeque<>();
+        trees.push(this);
+        while (!trees.isEmpty()) {
+            DrawingTree tree = trees.pop();
+            if (tree.children != null) {
+                Point temp = new Point(tree.pos.x, tree.pos.y);
+                for (int i = 0; i < tree.children.length; i++) {
+                    DrawingTree child = tree.children[i];
+                    child.pos.x = temp.x + child.offset.x;
+                    child.pos.y = temp.y + child.offset.y;
+                    trees.push(child);
+                    temp.x += child.offset.x;
+                    temp.y = tree.pos.y + tree.children[0].offset.y;
+                }
             }
         }
     }
@@ -19,9 +19,12 @@
 package project11DouglasMarcello.bantam.treedrawer;
 
 import project11DouglasMarcello.bantam.ast.*;
+import project11DouglasMarcello.bantam.visitor.TreeWalker;
 import project11DouglasMarcello.bantam.visitor.Visitor;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class LayoutVisitor extends Visitor
 {
@@ -31,11 +34,26 @@ public class LayoutVisitor extends Visitor
 
     private FontMetrics fontMetrics;
 
+    // the trees whose children are not laid out yet, with their numbers of children
+    private List<DrawingTree> openTrees = new ArrayList<>();
+    private List<Integer> openChildCounts = new ArrayList<>();
+    // the trees laid out, waiting to be attached to their parents
+    private List<DrawingTree> doneTrees = new ArrayList<>();
+
     public LayoutVisitor(FontMetrics fontMetrics)
     {
         this.fontMetrics = fontMetrics;
     }
 
+    // lays out the AST from a TreeWalker rather than by recursion,
+    // so that deeply nested expressions do not overflow the stack
+    public DrawingTree layout(Program program)
+    {
+        doneTrees.clear();
+        new TreeWalker().walk(program, this);
+        return doneTrees.remove(0);
+    }
+
 
     // Programs, Classes, Methods, Fields
 
@@ -290,83 +308,76 @@ public class LayoutVisitor extends Visitor
         dt.contour.upper_head = dt.contour.upper_tail;
         dt.contour.lower_tail = new Polyline(-dt.width - 2 * BORDER, 0, null);
         dt.contour.lower_head = new Polyline(0, dt.height + 2 * BORDER, dt.contour.lower_tail);
+        openTrees.add(dt);
+        openChildCounts.add(0);
         return dt;
     }
 
     private DrawingTree layoutUnary(String name, ASTNode child1)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        dt.setChildren(new DrawingTree[]{d1});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1});
     }
 
     private DrawingTree layoutBinary(String name, ASTNode child1, ASTNode child2)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2});
     }
 
     private DrawingTree layoutTernary(String name, ASTNode child1, ASTNode child2,
                                       ASTNode child3)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3});
     }
 
     private DrawingTree layoutQuaternary(String name, ASTNode child1, ASTNode child2,
                                          ASTNode child3, ASTNode child4)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        DrawingTree d4 = (DrawingTree) child4.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3, d4});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3, child4});
     }
 
     private DrawingTree layoutQuintenary(String name, ASTNode child1, ASTNode child2,
                                          ASTNode child3, ASTNode child4, ASTNode child5)
     {
-        DrawingTree dt = layoutCaption(name);
-        DrawingTree d1 = (DrawingTree) child1.accept(this);
-        DrawingTree d2 = (DrawingTree) child2.accept(this);
-        DrawingTree d3 = (DrawingTree) child3.accept(this);
-        DrawingTree d4 = (DrawingTree) child4.accept(this);
-        DrawingTree d5 = (DrawingTree) child5.accept(this);
-        dt.setChildren(new DrawingTree[]{d1, d2, d3, d4, d5});
-        attachParent(dt, join(dt));
-        return dt;
+        return layoutChildren(name, new ASTNode[]{child1, child2, child3, child4, child5});
     }
 
     private DrawingTree layoutNary(String name, ListNode childNodes)
     {
         if(childNodes.getSize() == 0)
             return layoutNullary("Empty" + name);
+        ASTNode[] children = new ASTNode[childNodes.getSize()];
+        for(int i = 0; i < children.length; i++)
+            children[i] = childNodes.get(i);
+        return layoutChildren(name, children);
+    }
+
+    // the children are laid out by the TreeWalker after the visit method returns,
+    // so the tree is left open until endVisit, when their trees are ready
+    private DrawingTree layoutChildren(String name, ASTNode[] children)
+    {
         DrawingTree dt = layoutCaption(name);
-        DrawingTree[] childTrees = new DrawingTree[childNodes.getSize()];
-        int i = 0;
-        for(ASTNode childNode : childNodes) {
-            childTrees[i] = (DrawingTree) childNode.accept(this);
-            i++;
-        }
-        dt.setChildren(childTrees);
-        attachParent(dt, join(dt));
+        openTrees.add(dt);
+        openChildCounts.add(children.length);
+        for(ASTNode child : children)
+            visitChild(child);
         return dt;
     }
 
+    public void endVisit(ASTNode node)
+    {
+        int last = openTrees.size() - 1;
+        DrawingTree dt = openTrees.remove(last);
+        int childCount = openChildCounts.remove(last);
+        if(childCount > 0) {
+            List<DrawingTree> childTrees =
+                    doneTrees.subList(doneTrees.size() - childCount, doneTrees.size());
+            dt.setChildren(childTrees.toArray(new DrawingTree[childCount]));
+            childTrees.clear();
+            attachParent(dt, join(dt));
+        }
+        doneTrees.add(dt);
+    }
+
     private void attachParent(DrawingTree dt, int w)
     {
         int y = PARENT_SEP;
@@ -34,6 +34,7 @@ import java.util.List;
 
 /**
  * The <tt>ErrorHandler</tt> class performs error handling.
+ * It is thread-safe, so one ErrorHandler can collect the errors of several threads.
  */
 public class ErrorHandler {
     /**
@@ -46,7 +47,7 @@ public class ErrorHandler {
      *
      * @param error the error object
      */
-    private void register(Error error) {
+    private synchronized void register(Error error) {
         // insert a new error into the error list
         // but keep at most 100 errors.
         if (errorList.size() < 100) {
@@ -80,10 +81,23 @@ public class ErrorHandler {
         register((new Error(kind, null, -1, errorMessage)));
     }
 
+    /**
+     * Registers all the errors of another ErrorHandler, such as one used for a
+     * single file, in the order they are kept there
+     *
+     * @param other the ErrorHandler whose errors are registered
+     */
+    public void registerAll(ErrorHandler other) {
+        // take a copy first, so that the two handlers are never locked at once
+        for (Error error : other.getErrorList()) {
+            register(error);
+        }
+    }
+
     /**
      * return true if any errors were reported.
      */
-    public boolean errorsFound() {
+    public synchronized boolean errorsFound() {
         return errorList.size() > 0;
     }
 
@@ -129,10 +143,12 @@ public class ErrorHandler {
      *
      * @return an unmodifiable copy of the list of registered errors
      */
-    public List<Error> getErrorList() { return Collections.unmodifiableList(errorList); }
+    public synchronized List<Error> getErrorList() {
+        return Collections.unmodifiableList(new ArrayList<>(errorList));
+    }
 
     /**
      * Clears the error list.
      */
-    public void clear() { errorList.clear(); }
+    public synchronized void clear() { errorList.clear(); }
 }
@@ -0,0 +1,83 @@
+/*
+ * File: Analysis.java
+ * This file contains the Analysis class, one pass over the AST that a
+ * FusedVisitor can run together with other passes in a single traversal.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.ASTNode;
+import project11DouglasMarcello.bantam.ast.Program;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Analysis class is an analysis of a Program written as callbacks instead of
+ * as a Visitor, so that a FusedVisitor can run many of them in one walk of the AST.
+ *
+ * An analysis names the node types it looks at, and only nodes of those types
+ * (or of their subclasses) are passed to enter() and exit(). When enter() returns
+ * false, the analysis sees nothing below that node; the other analyses go on as usual.
+ * All the state of an analysis is kept in the analysis object itself.
+ *
+ * @param <R> the type of the result of the analysis
+ */
+public abstract class Analysis<R> {
+    /**
+     * the node types the analysis looks at
+     */
+    private List<Class<? extends ASTNode>> nodeTypes;
+
+    /**
+     * A constructor of the Analysis class.
+     *
+     * @param nodeTypes the node types the analysis looks at
+     */
+    @SafeVarargs
+    protected Analysis(Class<? extends ASTNode>... nodeTypes) {
+        List<Class<? extends ASTNode>> types = new ArrayList<>(nodeTypes.length);
+        for (Class<? extends ASTNode> nodeType : nodeTypes) {
+            types.add(nodeType);
+        }
+        this.nodeTypes = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * Gets the node types the analysis looks at.
+     *
+     * @return an unmodifiable list of the node classes
+     */
+    public List<Class<? extends ASTNode>> getNodeTypes() { return this.nodeTypes; }
+
+    /**
+     * Called before the AST is walked, to clear the state left by an earlier run.
+     *
+     * @param program the root of the AST about to be walked
+     */
+    public abstract void start(Program program);
+
+    /**
+     * Called when the walk reaches a node of one of the types the analysis looks at,
+     * before the nodes below it.
+     *
+     * @param node the node
+     * @return true to see the nodes below this one, false to skip them
+     */
+    public boolean enter(ASTNode node) { return true; }
+
+    /**
+     * Called after the nodes below a node passed to enter() have been walked,
+     * or skipped, whatever enter() returned.
+     *
+     * @param node the node
+     */
+    public void exit(ASTNode node) { }
+
+    /**
+     * Gets the result of the last run.
+     *
+     * @return the result
+     */
+    public abstract R getResult();
+}
@@ -0,0 +1,569 @@
+/*
+ * File: FusedVisitor.java
+ * This file contains the FusedVisitor class, running several analyses
+ * in a single traversal of the AST.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.*;
+import project11DouglasMarcello.bantam.ast.CompactAst.Kind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The FusedVisitor class walks an AST once and passes each node to every
+ * Analysis that looks at nodes of its type, in the order the analyses were given.
+ *
+ * Each analysis can stop looking below any node it is given. The walk keeps going
+ * for the others, and the nodes below are not visited at all once no analysis
+ * is still looking. The walk is run by a TreeWalker, so an AST of any depth can be walked.
+ *
+ * Which analyses look at which node classes is worked out once for each combination
+ * of node types, and kept in a table indexed by the CompactAst.Kind of the node, so that
+ * a node is dispatched with an array access. Since the table is indexed by the type
+ * of the visit method, a subclass of a node class is dispatched as that class.
+ */
+public class FusedVisitor extends Visitor {
+    /**
+     * all the CompactAst.Kind values, indexed by ordinal
+     */
+    private static final Kind[] kindValues = Kind.values();
+
+    /**
+     * the listener tables already worked out, by the node types of the analyses,
+     * since a table only depends on those and FusedVisitors are often created
+     * for the same kinds of analyses over and over
+     */
+    private static final Map<List<List<Class<? extends ASTNode>>>, int[][]> listenerTables =
+            new ConcurrentHashMap<>();
+
+    /**
+     * the analyses, in the order they were given
+     */
+    private Analysis<?>[] analyses;
+    /**
+     * the indexes of the analyses looking at each node class, indexed by the ordinal of its Kind
+     */
+    private int[][] listeners;
+    /**
+     * for each analysis, the depth of the node below which it stopped looking,
+     * or 0 if it is still looking
+     */
+    private int[] skippedAt;
+    /**
+     * the number of analyses still looking
+     */
+    private int lookingCount;
+    /**
+     * the depth of the node being visited, 1 for the root of the walk
+     */
+    private int depth;
+    /**
+     * the kind of the node at each depth from the root to the node being visited
+     */
+    private Kind[] kinds = new Kind[64];
+    /**
+     * runs the walks, so that there is no limit on the depth of the AST
+     */
+    private TreeWalker walker = new TreeWalker();
+
+    /**
+     * A constructor of the FusedVisitor class.
+     *
+     * @param analyses the analyses to run
+     */
+    public FusedVisitor(Analysis<?>... analyses) {
+        this.analyses = analyses.clone();
+        this.skippedAt = new int[analyses.length];
+        List<List<Class<? extends ASTNode>>> nodeTypes = new ArrayList<>(analyses.length);
+        for (Analysis<?> analysis : analyses) {
+            nodeTypes.add(analysis.getNodeTypes());
+        }
+        this.listeners = listenerTables.computeIfAbsent(nodeTypes, FusedVisitor::createListeners);
+    }
+
+    /**
+     * Helper method to work out which analyses look at each node class.
+     *
+     * @param nodeTypes the node types each analysis looks at, in the order of the analyses
+     * @return the indexes of the analyses looking at each node class, indexed by the ordinal of its Kind
+     */
+    private static int[][] createListeners(List<List<Class<? extends ASTNode>>> nodeTypes) {
+        int[][] listeners = new int[kindValues.length][];
+        for (int kind = 0; kind < kindValues.length; kind++) {
+            Class<? extends ASTNode> nodeClass = kindValues[kind].getNodeClass();
+            List<Integer> found = new ArrayList<>();
+            for (int i = 0; nodeClass != null && i < nodeTypes.size(); i++) {
+                for (Class<? extends ASTNode> nodeType : nodeTypes.get(i)) {
+                    if (nodeType.isAssignableFrom(nodeClass)) {
+                        found.add(i);
+                        break;
+                    }
+                }
+            }
+            listeners[kind] = new int[found.size()];
+            for (int i = 0; i < found.size(); i++) {
+                listeners[kind][i] = found.get(i);
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Runs all the analyses over the given AST in one walk.
+     * The result of each is then available from its getResult().
+     *
+     * @param program the root of the AST
+     */
+    public void run(Program program) { this.run(program, program); }
+
+    /**
+     * Runs all the analyses over one subtree of the given AST, such as a single class.
+     * The result of each is then available from its getResult().
+     *
+     * @param program the root of the AST, passed to the analyses when they start
+     * @param subtree the root of the part of the AST to walk
+     */
+    public void run(Program program, ASTNode subtree) {
+        Arrays.fill(this.skippedAt, 0);
+        this.lookingCount = this.analyses.length;
+        this.depth = 0;
+        for (Analysis<?> analysis : this.analyses) {
+            analysis.start(program);
+        }
+        this.walker.walk(subtree, this);
+    }
+
+    /**
+     * Helper method to pass a node to the analyses looking at it before its children are visited.
+     *
+     * @param node the node
+     * @param kind the kind of the node
+     * @return true if the children must be visited, because some analysis is still looking
+     */
+    private boolean enter(ASTNode node, Kind kind) {
+        this.depth++;
+        if (this.depth == this.kinds.length) {
+            this.kinds = Arrays.copyOf(this.kinds, this.depth * 2);
+        }
+        this.kinds[this.depth] = kind;
+        for (int index : this.listeners[kind.ordinal()]) {
+            if (this.skippedAt[index] == 0 && !this.analyses[index].enter(node)) {
+                this.skippedAt[index] = this.depth;
+                this.lookingCount--;
+            }
+        }
+        return this.lookingCount > 0;
+    }
+
+    /**
+     * Helper method to pass a node to the analyses looking at it after its children are visited.
+     * An analysis that stopped looking below this node starts looking again.
+     *
+     * @param node the node
+     * @param kind the kind of the node
+     */
+    private void exit(ASTNode node, Kind kind) {
+        for (int index : this.listeners[kind.ordinal()]) {
+            if (this.skippedAt[index] == 0) {
+                this.analyses[index].exit(node);
+            }
+            else if (this.skippedAt[index] == this.depth) {
+                this.analyses[index].exit(node);
+                this.skippedAt[index] = 0;
+                this.lookingCount++;
+            }
+        }
+        this.depth--;
+    }
+
+    /**
+     * Passes the node to the analyses once its children have been visited.
+     *
+     * @param node the node
+     */
+    @Override
+    public void endVisit(ASTNode node) {
+        this.exit(node, this.kinds[this.depth]);
+    }
+
+    @Override
+    public Object visit(Program node) {
+        if (this.enter(node, Kind.PROGRAM)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ClassList node) {
+        if (this.enter(node, Kind.CLASS_LIST)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(Class_ node) {
+        if (this.enter(node, Kind.CLASS)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(MemberList node) {
+        if (this.enter(node, Kind.MEMBER_LIST)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(Field node) {
+        if (this.enter(node, Kind.FIELD)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(Method node) {
+        if (this.enter(node, Kind.METHOD)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(FormalList node) {
+        if (this.enter(node, Kind.FORMAL_LIST)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(Formal node) {
+        if (this.enter(node, Kind.FORMAL)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(StmtList node) {
+        if (this.enter(node, Kind.STMT_LIST)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(DeclStmt node) {
+        if (this.enter(node, Kind.DECL_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ExprStmt node) {
+        if (this.enter(node, Kind.EXPR_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(IfStmt node) {
+        if (this.enter(node, Kind.IF_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(WhileStmt node) {
+        if (this.enter(node, Kind.WHILE_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ForStmt node) {
+        if (this.enter(node, Kind.FOR_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BreakStmt node) {
+        if (this.enter(node, Kind.BREAK_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BlockStmt node) {
+        if (this.enter(node, Kind.BLOCK_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ReturnStmt node) {
+        if (this.enter(node, Kind.RETURN_STMT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ExprList node) {
+        if (this.enter(node, Kind.EXPR_LIST)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(DispatchExpr node) {
+        if (this.enter(node, Kind.DISPATCH_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(NewExpr node) {
+        if (this.enter(node, Kind.NEW_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(NewArrayExpr node) {
+        if (this.enter(node, Kind.NEW_ARRAY_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(InstanceofExpr node) {
+        if (this.enter(node, Kind.INSTANCEOF_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(CastExpr node) {
+        if (this.enter(node, Kind.CAST_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(AssignExpr node) {
+        if (this.enter(node, Kind.ASSIGN_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ArrayAssignExpr node) {
+        if (this.enter(node, Kind.ARRAY_ASSIGN_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompEqExpr node) {
+        if (this.enter(node, Kind.COMP_EQ)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompNeExpr node) {
+        if (this.enter(node, Kind.COMP_NE)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompLtExpr node) {
+        if (this.enter(node, Kind.COMP_LT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompLeqExpr node) {
+        if (this.enter(node, Kind.COMP_LEQ)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompGtExpr node) {
+        if (this.enter(node, Kind.COMP_GT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryCompGeqExpr node) {
+        if (this.enter(node, Kind.COMP_GEQ)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryArithPlusExpr node) {
+        if (this.enter(node, Kind.ARITH_PLUS)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryArithMinusExpr node) {
+        if (this.enter(node, Kind.ARITH_MINUS)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryArithTimesExpr node) {
+        if (this.enter(node, Kind.ARITH_TIMES)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryArithDivideExpr node) {
+        if (this.enter(node, Kind.ARITH_DIVIDE)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryArithModulusExpr node) {
+        if (this.enter(node, Kind.ARITH_MODULUS)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryLogicAndExpr node) {
+        if (this.enter(node, Kind.LOGIC_AND)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(BinaryLogicOrExpr node) {
+        if (this.enter(node, Kind.LOGIC_OR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(UnaryNegExpr node) {
+        if (this.enter(node, Kind.UNARY_NEG)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(UnaryNotExpr node) {
+        if (this.enter(node, Kind.UNARY_NOT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(UnaryIncrExpr node) {
+        if (this.enter(node, Kind.UNARY_INCR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(UnaryDecrExpr node) {
+        if (this.enter(node, Kind.UNARY_DECR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(VarExpr node) {
+        if (this.enter(node, Kind.VAR_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ArrayExpr node) {
+        if (this.enter(node, Kind.ARRAY_EXPR)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ConstIntExpr node) {
+        if (this.enter(node, Kind.CONST_INT)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ConstBooleanExpr node) {
+        if (this.enter(node, Kind.CONST_BOOLEAN)) {
+            super.visit(node);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visit(ConstStringExpr node) {
+        if (this.enter(node, Kind.CONST_STRING)) {
+            super.visit(node);
+        }
+        return null;
+    }
+}
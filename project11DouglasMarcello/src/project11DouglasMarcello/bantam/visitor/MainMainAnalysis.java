@@ -0,0 +1,52 @@
+/*
+ * File: MainMainAnalysis.java
+ * This file contains the MainMainAnalysis class, the MainMainVisitor check
+ * written as an Analysis for a FusedVisitor.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.*;
+
+/**
+ * The MainMainAnalysis class finds out whether the program has a Main class with
+ * a main method with return type void and no parameters, like MainMainVisitor.
+ * It looks only inside classes named Main, and never below a member.
+ */
+public class MainMainAnalysis extends Analysis<Boolean> {
+    /**
+     * whether Main.main has been found
+     */
+    private boolean hasMain;
+
+    /**
+     * A constructor of the MainMainAnalysis class.
+     */
+    public MainMainAnalysis() { super(Class_.class, Field.class, Method.class); }
+
+    @Override
+    public void start(Program program) { this.hasMain = false; }
+
+    @Override
+    public boolean enter(ASTNode node) {
+        if (node instanceof Class_) {
+            return ((Class_) node).getName().equals("Main");
+        }
+        if (node instanceof Method) {
+            Method method = (Method) node;
+            if (method.getReturnType().equals("void") && method.getFormalList().getSize() == 0
+                    && method.getName().equals("main")) {
+                this.hasMain = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether the program has Main.main with return type void and no parameters.
+     *
+     * @return true if it has
+     */
+    @Override
+    public Boolean getResult() { return this.hasMain; }
+}
@@ -14,7 +14,7 @@ public class MainMainVisitor extends Visitor {
      */
     public boolean hasMain(Program ast) {
         hasMain = false;
-        ast.accept(this); //starts visitation
+        new TreeWalker().walk(ast, this); //starts visitation
         return hasMain;
     }
 
@@ -29,7 +29,7 @@ public class MainMainVisitor extends Visitor {
     @Override
     public Object visit(Class_ node) {
         if (node.getName().equals("Main")) {
-            node.getMemberList().accept(this);
+            this.visitChild(node.getMemberList());
             return null;
         }
         return null;
@@ -0,0 +1,75 @@
+/*
+ * File: NumLocalVarsAnalysis.java
+ * This file contains the NumLocalVarsAnalysis class, the NumLocalVarsVisitor
+ * pass written as an Analysis for a FusedVisitor.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The NumLocalVarsAnalysis class counts the parameters and local variables of each
+ * method, like NumLocalVarsVisitor. The keys of the result are Class.method.
+ * Fields hold no declarations, so it does not look below them.
+ */
+public class NumLocalVarsAnalysis extends Analysis<Map<String, Integer>> {
+    /**
+     * the counts of the methods finished so far
+     */
+    private Map<String, Integer> localVars;
+    /**
+     * the name of the class being walked
+     */
+    private String className;
+    /**
+     * the number of parameters and local variables found in the method being walked
+     */
+    private int count;
+
+    /**
+     * A constructor of the NumLocalVarsAnalysis class.
+     */
+    public NumLocalVarsAnalysis() { super(Class_.class, Field.class, Method.class, DeclStmt.class); }
+
+    @Override
+    public void start(Program program) {
+        this.localVars = new HashMap<>();
+        this.className = "";
+        this.count = 0;
+    }
+
+    @Override
+    public boolean enter(ASTNode node) {
+        if (node instanceof Class_) {
+            this.className = ((Class_) node).getName();
+        }
+        else if (node instanceof Field) {
+            return false;
+        }
+        else if (node instanceof Method) {
+            this.count = ((Method) node).getFormalList().getSize();
+        }
+        else {
+            this.count++;
+        }
+        return true;
+    }
+
+    @Override
+    public void exit(ASTNode node) {
+        if (node instanceof Method) {
+            this.localVars.put(this.className + "." + ((Method) node).getName(), this.count);
+        }
+    }
+
+    /**
+     * Gets the map from each method to its number of parameters and local variables.
+     *
+     * @return the map of the counts
+     */
+    @Override
+    public Map<String, Integer> getResult() { return this.localVars; }
+}
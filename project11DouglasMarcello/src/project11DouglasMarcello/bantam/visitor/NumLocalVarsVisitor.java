@@ -26,7 +26,7 @@ public class NumLocalVarsVisitor extends Visitor {
         key = "";
         count = 0;
         localVars = new HashMap<String, Integer>();
-        ast.accept(this); //starts visitation
+        new TreeWalker().walk(ast, this); //starts visitation
         return localVars;
     }
 
@@ -58,13 +58,26 @@ public class NumLocalVarsVisitor extends Visitor {
     public Object visit(Method node) {
         key = className + "." + node.getName();
         count = node.getFormalList().getSize();
-        node.getFormalList().accept(this);
-        node.getStmtList().accept(this);
-        localVars.put(key, count);
+        this.visitChild(node.getFormalList());
+        this.visitChild(node.getStmtList());
         return null;
     }
 
 
+    /**
+     * Called once all the nodes below a node have been visited
+     * stores the counter for the current key when leaving a method
+     *
+     * @param node the AST node
+     */
+    @Override
+    public void endVisit(ASTNode node) {
+        if (node instanceof Method) {
+            localVars.put(key, count);
+        }
+    }
+
+
     /**
      * Visit a declaration statement node
      * adds to the local variable counter each time a new Declaration Statement is made
@@ -0,0 +1,186 @@
+/*
+ * File: ParallelVisitorRunner.java
+ * This file contains the ParallelVisitorRunner class, running an analysis
+ * over the classes of a program in parallel.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.ASTNode;
+import project11DouglasMarcello.bantam.ast.ClassList;
+import project11DouglasMarcello.bantam.ast.ConstStringExpr;
+import project11DouglasMarcello.bantam.ast.Program;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * The ParallelVisitorRunner class runs an Analysis over a program one class at a time,
+ * with a new instance of the analysis for each Class_, so that the classes can be
+ * walked on a ForkJoinPool without sharing any state. The results of the classes are
+ * then merged with a combiner, always from the first class to the last, so the
+ * result does not depend on how the work was scheduled.
+ *
+ * The analysis must not depend on what it saw in earlier classes, and the result
+ * of an analysis that has seen no class must leave a result unchanged when combined.
+ */
+public class ParallelVisitorRunner {
+    /**
+     * Lists the string constants of a class in the order they appear,
+     * so that they can be numbered across the classes after the lists are joined.
+     */
+    private static class StringConstantList extends Analysis<List<String>> {
+        /**
+         * the string constants found so far
+         */
+        private List<String> constants;
+
+        /**
+         * A constructor of the StringConstantList class.
+         */
+        StringConstantList() { super(ConstStringExpr.class); }
+
+        @Override
+        public void start(Program program) { this.constants = new ArrayList<>(); }
+
+        @Override
+        public boolean enter(ASTNode node) {
+            this.constants.add(((ConstStringExpr) node).getConstant());
+            return true;
+        }
+
+        @Override
+        public List<String> getResult() { return this.constants; }
+    }
+
+    /**
+     * the number of classes walked at the same time
+     */
+    private int parallelism;
+
+    /**
+     * A constructor of the ParallelVisitorRunner class, walking as many classes at a time
+     * as there are processors.
+     */
+    public ParallelVisitorRunner() { this(Runtime.getRuntime().availableProcessors()); }
+
+    /**
+     * A constructor of the ParallelVisitorRunner class.
+     *
+     * @param parallelism the number of classes to walk at the same time
+     */
+    public ParallelVisitorRunner(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs a new instance of an analysis over each class of the program and merges their results.
+     *
+     * @param program the root of the AST
+     * @param factory creates a new instance of the analysis
+     * @param combiner merges the results of the classes so far with the result of the next class
+     * @param <R> the type of the result of the analysis
+     * @return the merged result, or the result of an analysis that saw no class if there are none
+     */
+    public <R> R run(Program program, Supplier<? extends Analysis<R>> factory, BinaryOperator<R> combiner) {
+        // the classes are looked up here, so that the tasks only read the array
+        ClassList classList = program.getClassList();
+        ASTNode[] classes = new ASTNode[classList.getSize()];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = classList.get(i);
+        }
+        Analysis<R> empty = factory.get();
+        empty.start(program);
+        R result = empty.getResult();
+        if (this.parallelism == 1 || classes.length < 2) {
+            for (R classResult : runClasses(program, classes, factory, 0, classes.length)) {
+                result = combiner.apply(result, classResult);
+            }
+            return result;
+        }
+
+        // a few tasks per thread even out classes of different sizes
+        int chunkSize = Math.max(1, classes.length / (4 * this.parallelism));
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            List<ForkJoinTask<List<R>>> tasks = new ArrayList<>();
+            for (int from = 0; from < classes.length; from += chunkSize) {
+                int start = from;
+                int end = Math.min(classes.length, from + chunkSize);
+                tasks.add(pool.submit(() -> runClasses(program, classes, factory, start, end)));
+            }
+            // joining in submission order is what keeps the results in class order
+            for (ForkJoinTask<List<R>> task : tasks) {
+                for (R classResult : task.join()) {
+                    result = combiner.apply(result, classResult);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the parameters and local variables of each method, like NumLocalVarsVisitor.
+     *
+     * @param program the root of the AST
+     * @return a map from Class.method to the number of parameters and local variables
+     */
+    public Map<String, Integer> getNumLocalVars(Program program) {
+        return this.run(program, NumLocalVarsAnalysis::new, (merged, next) -> {
+            merged.putAll(next);
+            return merged;
+        });
+    }
+
+    /**
+     * Names each string constant, like StringConstantsVisitor: the constants are counted
+     * in the order they appear, and each is named StringConst_ followed by the count
+     * at its last appearance.
+     *
+     * @param program the root of the AST
+     * @return a map from each string constant to its name
+     */
+    public Map<String, String> getStringConstants(Program program) {
+        List<String> constants = this.run(program, StringConstantList::new, (merged, next) -> {
+            merged.addAll(next);
+            return merged;
+        });
+        Map<String, String> stringConstants = new HashMap<>();
+        for (int i = 0; i < constants.size(); i++) {
+            stringConstants.put(constants.get(i), "StringConst_" + i);
+        }
+        return stringConstants;
+    }
+
+    /**
+     * Helper method to run a new instance of an analysis over each class in a range.
+     *
+     * @param program the root of the AST
+     * @param classes the classes of the program
+     * @param factory creates a new instance of the analysis
+     * @param from the index of the first class
+     * @param to the index just past the last class
+     * @param <R> the type of the result of the analysis
+     * @return the results of the classes, in order
+     */
+    private static <R> List<R> runClasses(Program program, ASTNode[] classes,
+                                          Supplier<? extends Analysis<R>> factory, int from, int to) {
+        List<R> results = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Analysis<R> analysis = factory.get();
+            new FusedVisitor(analysis).run(program, classes[i]);
+            results.add(analysis.getResult());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * File: StringConstantsAnalysis.java
+ * This file contains the StringConstantsAnalysis class, the StringConstantsVisitor
+ * pass written as an Analysis for a FusedVisitor.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.ASTNode;
+import project11DouglasMarcello.bantam.ast.ConstStringExpr;
+import project11DouglasMarcello.bantam.ast.Program;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The StringConstantsAnalysis class maps each string constant in the program to a
+ * unique name of the form StringConst_0, StringConst_1 and so on, like StringConstantsVisitor.
+ */
+public class StringConstantsAnalysis extends Analysis<Map<String, String>> {
+    /**
+     * the names of the string constants found so far
+     */
+    private Map<String, String> stringConstants;
+    /**
+     * the number of string constants found so far
+     */
+    private int count;
+
+    /**
+     * A constructor of the StringConstantsAnalysis class.
+     */
+    public StringConstantsAnalysis() { super(ConstStringExpr.class); }
+
+    @Override
+    public void start(Program program) {
+        this.stringConstants = new HashMap<>();
+        this.count = 0;
+    }
+
+    @Override
+    public boolean enter(ASTNode node) {
+        this.stringConstants.put(((ConstStringExpr) node).getConstant(), "StringConst_" + this.count);
+        this.count++;
+        return true;
+    }
+
+    /**
+     * Gets the map from each string constant to its name.
+     *
+     * @return the map of the string constants
+     */
+    @Override
+    public Map<String, String> getResult() { return this.stringConstants; }
+}
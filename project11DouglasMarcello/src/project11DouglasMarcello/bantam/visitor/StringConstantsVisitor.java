@@ -22,7 +22,7 @@ public class StringConstantsVisitor extends Visitor{
     public Map<String, String> getStringConstants(Program ast) {
         stringConstants = new HashMap<String, String>();
         count = 0;
-        ast.accept(this); //starts visitation
+        new TreeWalker().walk(ast, this); //starts visitation
         return stringConstants;
     }
 
@@ -0,0 +1,140 @@
+/*
+ * File: TreeWalker.java
+ * This file contains the TreeWalker class, running a visitor over an AST
+ * from an explicit stack instead of by recursion.
+ */
+
+package project11DouglasMarcello.bantam.visitor;
+
+import project11DouglasMarcello.bantam.ast.ASTNode;
+import java.util.Arrays;
+
+/**
+ * The TreeWalker class runs a Visitor over an AST without recursion, so that the
+ * depth of the AST is limited by the heap rather than by the Java stack.
+ *
+ * Each node is passed to the visit method for its type, as node.accept(visitor) would.
+ * The children the visit method goes down to through Visitor.visitChild are not
+ * visited right away but collected, and visited from the walker's own stack once
+ * the visit method has returned, in the same order. After the last of them,
+ * the walker calls Visitor.endVisit on the node. A visit method that does not call
+ * visitChild on a child, such as one returning without calling super.visit,
+ * skips that child as it would when recursing.
+ *
+ * So a visitor opts in by being run with walk(root, visitor) instead of root.accept(visitor),
+ * as long as it reaches the children through visitChild or the default visit methods,
+ * and does the work that must come after the children in endVisit. The results visit
+ * methods return to one another are not available this way; such visitors must keep
+ * their results on a stack of their own.
+ *
+ * A TreeWalker can be used again after a walk, but by one thread at a time.
+ */
+public class TreeWalker {
+    /**
+     * for each class of visitor, whether it overrides endVisit, since the nodes
+     * need not be kept on the stack after their visit for those that do not
+     */
+    private static final ClassValue<Boolean> endingVisitors = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> visitorClass) {
+            try {
+                return visitorClass.getMethod("endVisit", ASTNode.class).getDeclaringClass() != Visitor.class;
+            } catch (NoSuchMethodException e) {
+                // every Visitor has the public endVisit method
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * the nodes still to be visited or ended, the next one last
+     */
+    private ASTNode[] nodes = new ASTNode[64];
+    /**
+     * for each node on the stack, whether it has been visited and is waiting for endVisit
+     */
+    private boolean[] visited = new boolean[64];
+    /**
+     * the number of nodes on the stack
+     */
+    private int size;
+    /**
+     * the largest number of nodes on the stack during the running walks
+     */
+    private int highWater;
+
+    /**
+     * Visits the AST below the given node, including the node itself, with the given visitor.
+     *
+     * @param root the root of the part of the AST to visit
+     * @param visitor the visitor
+     */
+    public void walk(ASTNode root, Visitor visitor) {
+        TreeWalker previousWalker = visitor.getWalker();
+        boolean ending = endingVisitors.get(visitor.getClass());
+        // the walker may be used again by a visit method of the walk it is running
+        int base = this.size;
+        visitor.setWalker(this);
+        try {
+            this.push(root);
+            while (this.size > base) {
+                int top = this.size - 1;
+                ASTNode node = this.nodes[top];
+                if (this.visited[top]) {
+                    this.size = top;
+                    visitor.endVisit(node);
+                    continue;
+                }
+                if (ending) {
+                    // the node stays below its children until they are done
+                    this.visited[top] = true;
+                }
+                else {
+                    this.size = top;
+                }
+                int firstChild = this.size;
+                node.accept(visitor);
+                // the children were pushed first to last, so they are turned around
+                // for the first child to be visited next
+                for (int i = firstChild, j = this.size - 1; i < j; i++, j--) {
+                    ASTNode child = this.nodes[i];
+                    this.nodes[i] = this.nodes[j];
+                    this.nodes[j] = child;
+                }
+            }
+        } finally {
+            visitor.setWalker(previousWalker);
+            this.size = base;
+            if (base == 0) {
+                // the popped slots are cleared once at the end rather than at each pop
+                Arrays.fill(this.nodes, 0, this.highWater, null);
+                this.highWater = 0;
+            }
+        }
+    }
+
+    /**
+     * Hands over a child of the node being visited, to be visited after the visit method returns.
+     *
+     * @param child the child node
+     */
+    void defer(ASTNode child) { this.push(child); }
+
+    /**
+     * Helper method to push a node that has not been visited onto the stack.
+     *
+     * @param node the node
+     */
+    private void push(ASTNode node) {
+        if (this.size == this.nodes.length) {
+            int capacity = this.size + (this.size >> 1);
+            this.nodes = Arrays.copyOf(this.nodes, capacity);
+            this.visited = Arrays.copyOf(this.visited, capacity);
+        }
+        this.nodes[this.size] = node;
+        this.visited[this.size++] = false;
+        if (this.size > this.highWater) {
+            this.highWater = this.size;
+        }
+    }
+}
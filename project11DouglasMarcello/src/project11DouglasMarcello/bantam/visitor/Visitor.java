@@ -28,12 +28,59 @@ package project11DouglasMarcello.bantam.visitor;
 
 import project11DouglasMarcello.bantam.ast.*;
 
-import java.util.Iterator;
-
 /**
  * Abstract visitor class for traversing the AST
+ *
+ * The default visit methods go down to the children of a node through visitChild.
+ * Called through node.accept(this), a visitor recurses, one Java stack frame per level
+ * of the AST. Run by a TreeWalker instead, visitChild only hands the children over to
+ * the walker, which visits them from its own stack after the visit method returns and
+ * then calls endVisit on the node, so any depth of nesting can be traversed.
  */
 public abstract class Visitor {
+    /**
+     * the TreeWalker running this visitor, or null if it visits by recursion
+     */
+    private TreeWalker walker;
+
+    /**
+     * Gets the TreeWalker running this visitor.
+     *
+     * @return the TreeWalker, or null if the visitor is not run by one
+     */
+    TreeWalker getWalker() { return this.walker; }
+
+    /**
+     * Sets the TreeWalker running this visitor.
+     *
+     * @param walker the TreeWalker, or null if the visitor visits by recursion
+     */
+    void setWalker(TreeWalker walker) { this.walker = walker; }
+
+    /**
+     * Visits a child of the node being visited: right away by recursion,
+     * or, when run by a TreeWalker, once the visit of the node has returned.
+     *
+     * @param child the child node
+     */
+    protected void visitChild(ASTNode child) {
+        if (this.walker == null) {
+            child.accept(this);
+        }
+        else {
+            this.walker.defer(child);
+        }
+    }
+
+    /**
+     * Called by a TreeWalker after a node and all of its descendants have been visited.
+     * Nothing is done by default.
+     *
+     * @param node the AST node
+     */
+    public void endVisit(ASTNode node) {
+    }
+
     /**
      * Visit an AST node (should never be called)
      *
@@ -61,7 +108,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(Program node) {
-        node.getClassList().accept(this);
+        this.visitChild(node.getClassList());
         return null;
     }
 
@@ -72,8 +119,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(ClassList node) {
-        for (ASTNode aNode : node)
-            aNode.accept(this);
+        for (int i = 0; i < node.getSize(); i++)
+            this.visitChild(node.get(i));
         return null;
     }
 
@@ -84,7 +131,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(Class_ node) {
-        node.getMemberList().accept(this);
+        this.visitChild(node.getMemberList());
         return null;
     }
 
@@ -95,8 +142,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(MemberList node) {
-        for (ASTNode child : node)
-            child.accept(this);
+        for (int i = 0; i < node.getSize(); i++)
+            this.visitChild(node.get(i));
         return null;
     }
 
@@ -118,7 +165,7 @@ public abstract class Visitor {
      */
     public Object visit(Field node) {
         if (node.getInit() != null) {
-            node.getInit().accept(this);
+            this.visitChild(node.getInit());
         }
         return null;
     }
@@ -130,8 +177,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(Method node) {
-        node.getFormalList().accept(this);
-        node.getStmtList().accept(this);
+        this.visitChild(node.getFormalList());
+        this.visitChild(node.getStmtList());
         return null;
     }
 
@@ -142,8 +189,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(FormalList node) {
-        for (Iterator it = node.iterator(); it.hasNext(); )
-            ((Formal) it.next()).accept(this);
+        for (int i = 0; i < node.getSize(); i++)
+            this.visitChild(node.get(i));
         return null;
     }
 
@@ -164,8 +211,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(StmtList node) {
-        for (Iterator it = node.iterator(); it.hasNext(); )
-            ((Stmt) it.next()).accept(this);
+        for (int i = 0; i < node.getSize(); i++)
+            this.visitChild(node.get(i));
         return null;
     }
 
@@ -186,7 +233,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(DeclStmt node) {
-        node.getInit().accept(this);
+        this.visitChild(node.getInit());
         return null;
     }
 
@@ -197,7 +244,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(ExprStmt node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -208,10 +255,10 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(IfStmt node) {
-        node.getPredExpr().accept(this);
-        node.getThenStmt().accept(this);
+        this.visitChild(node.getPredExpr());
+        this.visitChild(node.getThenStmt());
         if (node.getElseStmt() != null) {
-            node.getElseStmt().accept(this);
+            this.visitChild(node.getElseStmt());
         }
         return null;
     }
@@ -223,8 +270,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(WhileStmt node) {
-        node.getPredExpr().accept(this);
-        node.getBodyStmt().accept(this);
+        this.visitChild(node.getPredExpr());
+        this.visitChild(node.getBodyStmt());
         return null;
     }
 
@@ -236,15 +283,15 @@ public abstract class Visitor {
      */
     public Object visit(ForStmt node) {
         if (node.getInitExpr() != null) {
-            node.getInitExpr().accept(this);
+            this.visitChild(node.getInitExpr());
         }
         if (node.getPredExpr() != null) {
-            node.getPredExpr().accept(this);
+            this.visitChild(node.getPredExpr());
         }
         if (node.getUpdateExpr() != null) {
-            node.getUpdateExpr().accept(this);
+            this.visitChild(node.getUpdateExpr());
         }
-        node.getBodyStmt().accept(this);
+        this.visitChild(node.getBodyStmt());
         return null;
     }
 
@@ -265,7 +312,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BlockStmt node) {
-        node.getStmtList().accept(this);
+        this.visitChild(node.getStmtList());
         return null;
     }
 
@@ -277,7 +324,7 @@ public abstract class Visitor {
      */
     public Object visit(ReturnStmt node) {
         if (node.getExpr() != null) {
-            node.getExpr().accept(this);
+            this.visitChild(node.getExpr());
         }
         return null;
     }
@@ -289,8 +336,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(ExprList node) {
-        for (Iterator it = node.iterator(); it.hasNext(); )
-            ((Expr) it.next()).accept(this);
+        for (int i = 0; i < node.getSize(); i++)
+            this.visitChild(node.get(i));
         return null;
     }
 
@@ -312,8 +359,8 @@ public abstract class Visitor {
      */
     public Object visit(DispatchExpr node) {
         if(node.getRefExpr() != null)
-            node.getRefExpr().accept(this);
-        node.getActualList().accept(this);
+            this.visitChild(node.getRefExpr());
+        this.visitChild(node.getActualList());
         return null;
     }
 
@@ -334,7 +381,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(NewArrayExpr node) {
-        node.getSize().accept(this);
+        this.visitChild(node.getSize());
         return null;
     }
 
@@ -345,7 +392,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(InstanceofExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -356,7 +403,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(CastExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -367,7 +414,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(AssignExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -378,8 +425,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(ArrayAssignExpr node) {
-        node.getIndex().accept(this);
-        node.getExpr().accept(this);
+        this.visitChild(node.getIndex());
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -410,8 +457,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompEqExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -422,8 +469,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompNeExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -434,8 +481,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompLtExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -446,8 +493,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompLeqExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -458,8 +505,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompGtExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -470,8 +517,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryCompGeqExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -492,8 +539,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryArithPlusExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -504,8 +551,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryArithMinusExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -516,8 +563,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryArithTimesExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -528,8 +575,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryArithDivideExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -540,8 +587,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryArithModulusExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -562,8 +609,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryLogicAndExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -574,8 +621,8 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(BinaryLogicOrExpr node) {
-        node.getLeftExpr().accept(this);
-        node.getRightExpr().accept(this);
+        this.visitChild(node.getLeftExpr());
+        this.visitChild(node.getRightExpr());
         return null;
     }
 
@@ -596,7 +643,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(UnaryNegExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -607,7 +654,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(UnaryNotExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -618,7 +665,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(UnaryIncrExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -629,7 +676,7 @@ public abstract class Visitor {
      * @return result of the visit
      */
     public Object visit(UnaryDecrExpr node) {
-        node.getExpr().accept(this);
+        this.visitChild(node.getExpr());
         return null;
     }
 
@@ -641,7 +688,7 @@ public abstract class Visitor {
      */
     public Object visit(VarExpr node) {
         if (node.getRef() != null) {
-            node.getRef().accept(this);
+            this.visitChild(node.getRef());
         }
         return null;
     }
@@ -654,9 +701,9 @@ public abstract class Visitor {
      */
     public Object visit(ArrayExpr node) {
         if (node.getRef() != null) {
-            node.getRef().accept(this);
+            this.visitChild(node.getRef());
         }
-        node.getIndex().accept(this);
+        this.visitChild(node.getIndex());
         return null;
     }
 
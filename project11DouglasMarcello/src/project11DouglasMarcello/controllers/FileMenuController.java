@@ -322,31 +322,6 @@ public class FileMenuController {
         alert.showAndWait();
     }
 
-    /**
-     * Checks whether a file embedded in the specified tab should be saved before Scanning or Parsing.
-     * Pops up a dialog asking whether the user wants to save the file.
-     * Saves the file if the user agrees so.
-     *
-     * @param action a String of the name of the action that evokes the checkSaved method
-     * @return 0 if user clicked NO button; 1 if user clicked OK button;
-     *         2 is user clicked Cancel button; -1 is no saving is needed
-     */
-    public int checkSaved(String action) {
-        Tab currentTab = this.tabPane.getSelectionModel().getSelectedItem();
-        // if the file has not been saved or has been changed
-        if (this.tabNeedsSaving(currentTab, true)) {
-            int buttonClicked = this.createConfirmationDialog("Save Changes?",
-                    "Do you want to save the changes?",
-                    "Your recent file changes would not be " + action + " if not saved.");
-            // if user presses Yes button
-            if (buttonClicked == 1) {
-                this.handleSaveAction();
-            }
-            return buttonClicked;
-        }
-        return -1;
-    }
-
     /**
      * Handles the New button action.
      * Opens a styled code area embedded in a new tab.
@@ -29,7 +29,7 @@ import project11DouglasMarcello.bantam.visitor.NumLocalVarsVisitor;
 import project11DouglasMarcello.bantam.visitor.StringConstantsVisitor;
 import project11DouglasMarcello.bantam.visitor.Visitor;
 import project11DouglasMarcello.java.*;
-import project11DouglasMarcello.bantam.parser.Parser;
+import project11DouglasMarcello.bantam.parser.AstCache;
 import project11DouglasMarcello.bantam.ast.*;
 import project11DouglasMarcello.bantam.lexer.*;
 import project11DouglasMarcello.bantam.util.*;
@@ -45,6 +45,21 @@ import project11DouglasMarcello.bantam.treedrawer.Drawer;
  * @author Danqing Zhao
  */
 public class ToolBarController {
+    /**
+     * An analysis run on the AST of the selected tab once it has been parsed.
+     * It runs on the ParseWorker's thread, and a cancelled parse may still be running
+     * one, so each run creates its own visitor.
+     */
+    private interface Analysis {
+        /**
+         * Runs the analysis and prints its result to the console.
+         *
+         * @param program the AST to analyze
+         * @throws InterruptedException if interrupted while printing to the console
+         */
+        void run(Program program) throws InterruptedException;
+    }
+
     /**
      * Console defined in Main.fxml
      */
@@ -78,13 +93,9 @@ public class ToolBarController {
      */
     private ParseWorker parseWorker;
     /**
-     * A Parser object to parse a Java file into a program.
+     * The ASTs of the files parsed recently, so that text that has not changed is not parsed again.
      */
-    private Parser parser;
-    /**
-     * A String to store the list of tokens.
-     */
-    private String tokenStr;
+    private AstCache astCache;
     /**
      * A Program to store the parsed program.
      */
@@ -97,18 +108,6 @@ public class ToolBarController {
      * A boolean to keep track of whether or not the program should be drawing the AST.
      */
     private Boolean drawAST;
-    /**
-     * A MainMainVisitor to traverse the AST once the program has been parsed.
-     */
-    private MainMainVisitor mainMainVisitor;
-    /**
-     * A StringConstantVisitor to traverse the AST once the program has been parsed.
-     */
-    private StringConstantsVisitor stringConstantsVisitor;
-    /**
-     * A NumLocalVarsVisitor to traverse the AST once the program has been parsed.
-     */
-    private NumLocalVarsVisitor numLocalVarsVisitor;
 
 
     /**
@@ -122,9 +121,7 @@ public class ToolBarController {
         this.parseWorker = new ParseWorker();
         this.drawer = new Drawer();
         this.drawAST = false;
-        this.mainMainVisitor = new MainMainVisitor();
-        this.stringConstantsVisitor = new StringConstantsVisitor();
-        this.numLocalVarsVisitor = new NumLocalVarsVisitor();
+        this.astCache = new AstCache();
         this.disableConsoleFocusMove();
     }
 
@@ -204,17 +201,41 @@ public class ToolBarController {
     public ParseWorker getParseWorker() { return this.parseWorker; }
 
     /**
-     * Helper method for displaying the list of tokens into a new tab.
+     * A Writer displaying everything written to it in a new tab.
+     * The tab is opened when the writer is created, and each write is appended
+     * to it on the JavaFX application thread, so long outputs show up incrementally.
      */
-    private void outputToNewTab(String tokenStr) throws java.lang.InterruptedException {
-        this.mutex.tryAcquire();
-        Platform.runLater(() ->{
-            this.fileMenuController.handleNewAction();
-            JavaCodeArea newCodeArea = JavaTabPane.getCurrentCodeArea(this.tabPane);
-            newCodeArea.appendText(tokenStr);
-        });
-        Thread.sleep(1);
-        this.mutex.release();
+    private class NewTabWriter extends Writer {
+        /**
+         * the code area of the new tab, only accessed on the JavaFX application thread
+         */
+        private JavaCodeArea codeArea;
+
+        /**
+         * Opens the new tab the output goes to.
+         */
+        private NewTabWriter() {
+            Platform.runLater(() -> {
+                fileMenuController.handleNewAction();
+                this.codeArea = JavaTabPane.getCurrentCodeArea(tabPane);
+            });
+        }
+
+        /**
+         * Appends a chunk of characters to the new tab.
+         *
+         * @param chars the buffer holding the characters
+         * @param offset the index of the first character to append
+         * @param length the number of characters to append
+         */
+        @Override public void write(char[] chars, int offset, int length) {
+            String text = new String(chars, offset, length);
+            Platform.runLater(() -> this.codeArea.appendText(text));
+        }
+
+        @Override public void flush() { }
+
+        @Override public void close() { }
     }
 
     /**
@@ -289,16 +310,24 @@ public class ToolBarController {
      */
     public class ScanWorker extends Service<Boolean> {
         /**
-         * the file embedded in the selected tab.
+         * the name of the file embedded in the selected tab.
          */
-        private File file;
+        private String filename;
+        /**
+         * the text of the selected tab.
+         */
+        private String text;
 
         /**
-         * Sets the selected tab and the associating file.
+         * Sets the text to be scanned and the name it is reported under.
          *
-         * @param file the file to be scanned embedded in the selected tab.
+         * @param filename the name of the file embedded in the selected tab.
+         * @param text the text of the selected tab.
          */
-        private void setFile(File file) { this.file = file; }
+        private void setSource(String filename, String text) {
+            this.filename = filename;
+            this.text = text;
+        }
 
         /**
          * Overrides the createTask method in Service class.
@@ -317,7 +346,7 @@ public class ToolBarController {
                  *         false otherwise.
                  */
                 @Override protected Boolean call() {
-                    Boolean scanResult = scanParseJavaFile(file, false);
+                    Boolean scanResult = scanParseJavaFile(filename, text, false);
                     return scanResult;
                 }
             };
@@ -330,16 +359,30 @@ public class ToolBarController {
      */
     public class ParseWorker extends Service<Boolean> {
         /**
-         * the file embedded in the selected tab.
+         * the name of the file embedded in the selected tab.
+         */
+        private String filename;
+        /**
+         * the text of the selected tab.
          */
-        private File file;
+        private String text;
+        /**
+         * the analysis to run once the text has been parsed, or null.
+         */
+        private Analysis analysis;
 
         /**
-         * Sets the selected tab and the associating file.
+         * Sets the text to be parsed, the name it is reported under and the analysis to run on it.
          *
-         * @param file the file to be parsed embedded in the selected tab.
+         * @param filename the name of the file embedded in the selected tab.
+         * @param text the text of the selected tab.
+         * @param analysis the analysis to run if the text is parsed without errors, or null.
          */
-        private void setFile(File file) { this.file = file; }
+        private void setSource(String filename, String text, Analysis analysis) {
+            this.filename = filename;
+            this.text = text;
+            this.analysis = analysis;
+        }
 
         /**
          * Overrides the createTask method in Service class.
@@ -358,7 +401,10 @@ public class ToolBarController {
                  *         false otherwise.
                  */
                 @Override protected Boolean call() {
-                    Boolean parseResult = scanParseJavaFile(file, true);
+                    Boolean parseResult = scanParseJavaFile(filename, text, true);
+                    if (parseResult && analysis != null) {
+                        runAnalysis(analysis);
+                    }
                     return parseResult;
                 }
             };
@@ -368,30 +414,36 @@ public class ToolBarController {
     /**
      * Helper method for running Java scanning in a separate thread.
      *
-     * @param file the file being scanned or scanned & parsed
+     * @param filename the name of the file being scanned or scanned & parsed
+     * @param text the text being scanned or scanned & parsed
      * @param scanAndParse a boolean value indicating whether parse after scanning
      *                     false if only scan; true if scan & parse
      * @return true if scanning or scanning & parsing succeeds;
      *         false if scanning or scanning & parsing fails
      */
-    private boolean scanParseJavaFile(File file, boolean scanAndParse) {
+    private boolean scanParseJavaFile(String filename, String text, boolean scanAndParse) {
         ErrorHandler errorHandler = new ErrorHandler();
         try {
             Platform.runLater(() -> {
                 this.console.clear();
             });
-            String filename = file.getPath(); // get the filename(path) of the file
             if (scanAndParse) {
-                this.parser = new Parser(errorHandler);
-                this.program = this.parser.parse(filename);
-                if (this.drawAST) {
+                // only parses if the text has changed since it was last parsed
+                AstCache.Entry ast = this.astCache.get(filename, text);
+                this.program = ast.getProgram();
+                // the program is only partial if there were errors, so only draw a complete one;
+                // before the parser recovered from errors it gave no program at all in that case
+                if (this.drawAST && ast.getErrors().isEmpty()) {
                     this.drawer.draw(filename, this.program);
                 }
-                this.errorToConsole(errorHandler.getErrorList(), "Parsing");
+                this.errorToConsole(ast.getErrors(), "Parsing");
+                return ast.getErrors().isEmpty();
             } else {
-                this.scanner = new Scanner(filename, errorHandler);
-                this.tokenStr = this.scanner.scanFile();
-                this.outputToNewTab(this.tokenStr);
+                this.scanner = new Scanner(filename, text, errorHandler);
+                // hand the tokens to the new tab in chunks while scanning
+                try (Writer tokenWriter = new BufferedWriter(new NewTabWriter(), 1 << 16)) {
+                    this.scanner.scanTo(tokenWriter);
+                }
                 this.errorToConsole(errorHandler.getErrorList(), "Scanning");
             }
             return true;
@@ -411,40 +463,58 @@ public class ToolBarController {
         }
     }
 
+    /**
+     * Helper method to run an analysis on the program just parsed, in the parsing thread.
+     *
+     * @param analysis the analysis to run
+     */
+    private void runAnalysis(Analysis analysis) {
+        try {
+            analysis.run(this.program);
+        } catch (Throwable e) {
+            Platform.runLater(() -> this.fileMenuController.createErrorDialog("Printing to Console",
+                    "Error printing results to Console, please try again."));
+        }
+    }
+
     /**
      * Helper method to handle scanning or scanning & parsing a file.
+     * The current text of the selected tab is compiled directly, whether or not it has been saved.
      *
      * @param event Event object
      * @param scanAndParse a boolean value indicating whether parse after scanning
      *                     false if only scan; true if scan & parse
      */
     private void handleScanParseFile(Event event, boolean scanAndParse) {
-        // get the file associated with the selected tab
-        File file = this.tabFileMap.get(this.tabPane.getSelectionModel().getSelectedItem());
-
-        int checkIfSaved;
-        if (scanAndParse) {
-            checkIfSaved = this.fileMenuController.checkSaved("parsed");
-        } else {
-            checkIfSaved = this.fileMenuController.checkSaved("scanned");
-        }
+        this.handleScanParseFile(event, scanAndParse, null);
+    }
 
-        // if the user chooses cancel
-        if (checkIfSaved==2){
+    /**
+     * Helper method to handle scanning or scanning & parsing a file and then analyzing it.
+     * The current text of the selected tab is compiled directly, whether or not it has been saved.
+     *
+     * @param event Event object
+     * @param scanAndParse a boolean value indicating whether parse after scanning
+     *                     false if only scan; true if scan & parse
+     * @param analysis the analysis to run once the file has been parsed without errors, or null
+     */
+    private void handleScanParseFile(Event event, boolean scanAndParse, Analysis analysis) {
+        Tab selectedTab = this.tabPane.getSelectionModel().getSelectedItem();
+        if (selectedTab == null) {
             event.consume();
+            return;
         }
-        else{
-            if(checkIfSaved==1) {
-                // re-get the file associated with the selected tab because the file is saved and updated
-                file = this.tabFileMap.get(this.tabPane.getSelectionModel().getSelectedItem());
-            }
-            if (scanAndParse) {
-                this.parseWorker.setFile(file);
-                this.parseWorker.restart();
-            } else {
-                this.scanWorker.setFile(file);
-                this.scanWorker.restart();
-            }
+        // errors are reported under the file's path, or the tab's title if it has never been saved
+        File file = this.tabFileMap.get(selectedTab);
+        String filename = (file != null) ? file.getPath() : selectedTab.getText();
+        String text = JavaTabPane.getCodeArea(selectedTab).getText();
+
+        if (scanAndParse) {
+            this.parseWorker.setSource(filename, text, analysis);
+            this.parseWorker.restart();
+        } else {
+            this.scanWorker.setSource(filename, text);
+            this.scanWorker.restart();
         }
     }
 
@@ -454,49 +524,28 @@ public class ToolBarController {
      */
     private void handleCheckMain(Event event) {
         this.drawAST = false;
-        handleScanParseFile(event, true);
-        Platform.runLater(() -> {
-            try {
-                this.stringToConsole(String.valueOf(mainMainVisitor.hasMain(this.program)));
-            } catch (Throwable e) {
-                this.fileMenuController.createErrorDialog("Printing to Console",
-                        "Error printing results to Console, please try again.");
-            }
-        });
+        handleScanParseFile(event, true,
+                program -> this.stringToConsole(String.valueOf(new MainMainVisitor().hasMain(program))));
     }
 
     /**
-     * Helper method to check for a main method
+     * Helper method to list the string constants
      * @param event
      */
     private void handleCheckStringConstants(Event event) {
         this.drawAST = false;
-        handleScanParseFile(event, true);
-        Platform.runLater(() -> {
-            try {
-                this.mapToConsole(stringConstantsVisitor.getStringConstants(this.program));
-            } catch (Throwable e) {
-                this.fileMenuController.createErrorDialog("Printing to Console",
-                        "Error printing results to Console, please try again.");
-            }
-        });
+        handleScanParseFile(event, true,
+                program -> this.mapToConsole(new StringConstantsVisitor().getStringConstants(program)));
     }
 
     /**
-     * Helper method to check for a main method
+     * Helper method to count the local variables of each method
      * @param event
      */
     private void handleCheckNumLocalVars(Event event) {
         this.drawAST = false;
-        handleScanParseFile(event, true);
-        Platform.runLater(() -> {
-            try {
-                this.mapToConsole(numLocalVarsVisitor.getNumLocalVars(this.program));
-            } catch (Throwable e) {
-                this.fileMenuController.createErrorDialog("Printing to Console",
-                        "Error Printing Results to Console.");
-            }
-        });
+        handleScanParseFile(event, true,
+                program -> this.mapToConsole(new NumLocalVarsVisitor().getNumLocalVars(program)));
     }
 
     /**